@@ -25,20 +25,94 @@
 package edu.um.chemodanov.agra;
 
 import edu.um.chemodanov.agra.forwarding.*;
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.LocalObstacles;
 import edu.um.chemodanov.agra.model.Node;
-import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.model.Planarization;
 import edu.um.chemodanov.agra.model.Topology;
-import edu.um.chemodanov.agra.routing.BFS;
-import edu.um.chemodanov.agra.util.EuclDist;
+import edu.um.chemodanov.agra.routing.MultiSourceBFS;
 import javafx.util.Pair;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ExperimentHelper {
-    private static Random rand = new Random();
+    private int trialWorkers = 1; //number of trials that are simulated concurrently
+    private int pairWorkers = 1; //number of threads that route src-dst pairs of a trial concurrently
+    private long seed = new Random().nextLong(); //base seed for the per-trial random generators
+    private boolean fastIntDeg = false; //potential engines raise distances to integral degrees without Math.pow
+    private boolean useCache = false; //potential engines look potentials up in per destination tables
+    private long cacheBudget = PotentialCache.DEFAULT_BUDGET; //max bytes of the cached tables of an engine
+    private double theta = 0; //accuracy of the Barnes-Hut repulsion with global knowledge, 0 for the exact sum
+
+    /**
+     * @param trialWorkers - number of worker threads to run independent trials concurrently (1 runs them serially)
+     */
+    public void setTrialWorkers(int trialWorkers) {
+        this.trialWorkers = Math.max(1, trialWorkers);
+    }
+
+    /**
+     * @param pairWorkers - number of worker threads to route src-dst pairs of a trial concurrently (1 routes them serially)
+     */
+    public void setPairWorkers(int pairWorkers) {
+        this.pairWorkers = Math.max(1, pairWorkers);
+    }
+
+    /**
+     * @param seed - base seed, each trial derives its own random generator (and its topology's one) from it
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param fastIntDeg - see PotentialForwarding.setFastIntDeg (false by default, i.e., results are bit-exact)
+     */
+    public void setFastIntDeg(boolean fastIntDeg) {
+        this.fastIntDeg = fastIntDeg;
+    }
+
+    /**
+     * @param useCache - see PotentialForwarding.setUseCache (false by default)
+     */
+    public void setUseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+
+    /**
+     * @param cacheBudget - max memory (in bytes) that cached potential tables of every engine may take
+     *                    (PotentialCache.DEFAULT_BUDGET by default)
+     */
+    public void setCacheBudget(long cacheBudget) {
+        this.cacheBudget = cacheBudget;
+    }
+
+    /**
+     * @param theta - see PotentialForwarding.setTheta (0 by default, i.e., the exact sum over obstacles)
+     */
+    public void setTheta(double theta) {
+        this.theta = theta;
+    }
+
+    /**
+     * internal method that applies the potential evaluation settings of experiments to a new engine
+     *
+     * @return the engine
+     */
+    private <E extends PotentialForwarding> E configure(E engine) {
+        engine.setFastIntDeg(fastIntDeg);
+        engine.setUseCache(useCache);
+        engine.setCacheBudget(cacheBudget);
+        engine.setTheta(theta);
+        return engine;
+    }
 
     /**
      * Experiment to detect the best repulsive field attenuation degree
@@ -49,107 +123,129 @@ public class ExperimentHelper {
      * @param numObstacles - number of numObstacles to generate
      * @param deg          - array of different repulsive field attenuation degrees (for both local ARGF and ARPGF)
      */
-    public void doExperiment1(int trials, int pairNum, int numObstacles, double[] deg) {
+    public void doExperiment1(final int trials, final int pairNum, final int numObstacles, final double[] deg) {
         System.out.println("Experiment 1 (attenuation degree tuning) has been started!");
-        BFS bfs = new BFS();
-        ARGF_Global argfGlobal = new ARGF_Global();
-        ARGF_Local argfLocal = new ARGF_Local();
-        ARPGF_Global arpgfGlobal = new ARPGF_Global();
-        ARPGF_Local arpgfLocal = new ARPGF_Local();
 
         //conduct simulation
-        int degSize = deg.length;
-        int[] bfsPathNum = new int[trials];
-        int[][] argfGPathNum = new int[degSize][trials];
-        int[][] argfLPathNum = new int[degSize][trials];
-        int[][] arpgfGPathNum = new int[degSize][trials];
-        int[][] arpgfLPathNum = new int[degSize][trials];
-        double[][] argfGPathStretch = new double[degSize][trials];
-        double[][] argfLPathStretch = new double[degSize][trials];
-        double[][] arpgfGPathStretch = new double[degSize][trials];
-        double[][] arpgfLPathStretch = new double[degSize][trials];
-        double[] coverage = new double[trials];
-        int iter = 0;
-        for (int j = 0; j < trials; j++) {
-            System.out.println("Trial #" + j + " has been started!");
-            Topology t = new Topology(100);
-            for (Node n : t.getNodes())
-                n.setR(rand.nextDouble() * 1 + 4);
-            t.generateObstacles(numObstacles, 1, 10);
-            System.out.println("Network and obstacles were created!");
-            t.reInitializeNeighbors();
-            System.out.println("Neighbors were initialized!");
-            t.initializeCircumscribedObstacles();
-            System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
-
-            int maxLength = 100000; //arbitrary large number of hops!
-            int size = t.getGridSize();
-
-            //generate random pairs
-            List<Integer> nodeIds = new ArrayList<>(size * size);
-            for (Node n : t.getNodes())
-                if (n.isOn())
-                    nodeIds.add(n.getId());
-            int nodesNum = nodeIds.size();
-            System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
-            Random r = new Random();
-            List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
-            while (pairs.size() < pairNum) {
-                int src = nodeIds.get(r.nextInt(nodesNum));
-                int dst = nodeIds.get(r.nextInt(nodesNum));
-
-                if (src != dst)
-                    pairs.add(new Pair<>(src, dst));
-            }
-            System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
-
-            coverage[j] = Double.valueOf(nodesNum) / (size * size);
-            System.out.println("Coverage ratio:" + coverage[j]);
-
-            for (Pair<Integer, Integer> pair : pairs) {
-                List<Node> pathBFS = bfs.breadthFirstSearch(pair.getKey(), pair.getValue(), t);
-
-                if (!pathBFS.isEmpty()) {
-                    bfsPathNum[j] += 1;
-
-                    for (int i = 0; i < degSize; i++) {
-                        double intDeg = deg[i];
-                        ;
-                        argfGlobal.setDeg(intDeg);
-                        argfLocal.setDeg(intDeg);
-                        arpgfGlobal.setDeg(intDeg);
-                        arpgfLocal.setDeg(intDeg);
-                        List<Node> pathARGFG = argfGlobal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, maxLength);
-                        List<Node> pathARGFL = argfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, maxLength);
-                        List<Node> pathARPGFG = arpgfGlobal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, maxLength);
-                        List<Node> pathARPGFL = arpgfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, maxLength);
-                        if (!pathARGFG.isEmpty() && pathARGFG.get(pathARGFG.size() - 1).getId() == pair.getValue()) {
-                            argfGPathNum[i][j] += 1;
-                            argfGPathStretch[i][j] += Double.valueOf(pathARGFG.size()) / Double.valueOf(pathBFS.size());
-                        }
-                        if (!pathARGFL.isEmpty() && pathARGFL.get(pathARGFL.size() - 1).getId() == pair.getValue()) {
-                            argfLPathNum[i][j] += 1;
-                            argfLPathStretch[i][j] += Double.valueOf(pathARGFL.size()) / Double.valueOf(pathBFS.size());
-                        }
-                        if (!pathARPGFG.isEmpty() && pathARPGFG.get(pathARPGFG.size() - 1).getId() == pair.getValue()) {
-                            arpgfGPathNum[i][j] += 1;
-                            arpgfGPathStretch[i][j] += Double.valueOf(pathARPGFG.size()) / Double.valueOf(pathBFS.size());
+        final int degSize = deg.length;
+        final int[] bfsPathNum = new int[trials];
+        final int[][] argfGPathNum = new int[degSize][trials];
+        final int[][] argfLPathNum = new int[degSize][trials];
+        final int[][] arpgfGPathNum = new int[degSize][trials];
+        final int[][] arpgfLPathNum = new int[degSize][trials];
+        final double[][] argfGPathStretch = new double[degSize][trials];
+        final double[][] argfLPathStretch = new double[degSize][trials];
+        final double[][] arpgfGPathStretch = new double[degSize][trials];
+        final double[][] arpgfLPathStretch = new double[degSize][trials];
+        final double[] coverage = new double[trials];
+        runTrials(trials, new TrialTask() {
+            @Override
+            public void runTrial(int j, Random rand) {
+                int iter = 0;
+                System.out.println("Trial #" + j + " has been started!");
+                final Topology t = new Topology(100, new Random(rand.nextLong()));
+                t.setWorkers(pairWorkers);
+                for (Node n : t.getNodes())
+                    n.setR(rand.nextDouble() * 1 + 4);
+                t.generateObstacles(numObstacles, 1, 10);
+                System.out.println("Network and obstacles were created!");
+                t.reInitializeNeighbors();
+                System.out.println("Neighbors were initialized!");
+                t.initializeCircumscribedObstacles();
+                System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
+
+                final int maxLength = 100000; //arbitrary large number of hops!
+                int size = t.getGridSize();
+
+                //generate random pairs
+                List<Integer> nodeIds = new ArrayList<>(size * size);
+                for (Node n : t.getNodes())
+                    if (n.isOn())
+                        nodeIds.add(n.getId());
+                int nodesNum = nodeIds.size();
+                System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
+                Random r = rand;
+                final List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
+                while (pairs.size() < pairNum) {
+                    int src = nodeIds.get(r.nextInt(nodesNum));
+                    int dst = nodeIds.get(r.nextInt(nodesNum));
+
+                    if (src != dst)
+                        pairs.add(new Pair<>(src, dst));
+                }
+                System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
+
+                coverage[j] = Double.valueOf(nodesNum) / (size * size);
+                System.out.println("Coverage ratio:" + coverage[j]);
+
+                final int[] bfsLength = bfsLengths(t, pairs);
+                final PairOutcome[][] outcomes = new PairOutcome[pairs.size()][degSize];
+                runPairs(pairs.size(), new PairsTask() {
+                    @Override
+                    public void routePairs(int from, int to) {
+                        ARGF_Global argfGlobal = configure(new ARGF_Global());
+                        ARGF_Local argfLocal = configure(new ARGF_Local());
+                        ARPGF_Global arpgfGlobal = configure(new ARPGF_Global());
+                        ARPGF_Local arpgfLocal = configure(new ARPGF_Local());
+                        PathResult result = new PathResult();
+                        //degree by degree, so charge tables of a destination are shared by all its pairs
+                        for (int i = 0; i < degSize; i++) {
+                            argfGlobal.setDeg(deg[i]);
+                            argfLocal.setDeg(deg[i]);
+                            arpgfGlobal.setDeg(deg[i]);
+                            arpgfLocal.setDeg(deg[i]);
+                            for (int p = from; p < to; p++) {
+                                int src = pairs.get(p).getKey();
+                                int dst = pairs.get(p).getValue();
+                                if (bfsLength[p] == 0)
+                                    continue;
+
+                                PairOutcome o = new PairOutcome();
+                                o.bfs = bfsLength[p];
+                                o.argfG = deliveredLength(argfGlobal, src, dst, t, maxLength, result);
+                                o.argfL = deliveredLength(argfLocal, src, dst, t, maxLength, result);
+                                o.arpgfG = deliveredLength(arpgfGlobal, src, dst, t, maxLength, result);
+                                o.arpgfL = deliveredLength(arpgfLocal, src, dst, t, maxLength, result);
+                                outcomes[p][i] = o;
+                            }
                         }
-                        if (!pathARPGFL.isEmpty() && pathARPGFL.get(pathARPGFL.size() - 1).getId() == pair.getValue()) {
-                            arpgfLPathNum[i][j] += 1;
-                            arpgfLPathStretch[i][j] += Double.valueOf(pathARPGFL.size()) / Double.valueOf(pathBFS.size());
+                    }
+                });
+
+                for (int p = 0; p < pairs.size(); p++) {
+                    if (bfsLength[p] > 0) {
+                        bfsPathNum[j] += 1;
+
+                        for (int i = 0; i < degSize; i++) {
+                            PairOutcome o = outcomes[p][i];
+                            if (o.argfG > 0) {
+                                argfGPathNum[i][j] += 1;
+                                argfGPathStretch[i][j] += Double.valueOf(o.argfG) / Double.valueOf(o.bfs);
+                            }
+                            if (o.argfL > 0) {
+                                argfLPathNum[i][j] += 1;
+                                argfLPathStretch[i][j] += Double.valueOf(o.argfL) / Double.valueOf(o.bfs);
+                            }
+                            if (o.arpgfG > 0) {
+                                arpgfGPathNum[i][j] += 1;
+                                arpgfGPathStretch[i][j] += Double.valueOf(o.arpgfG) / Double.valueOf(o.bfs);
+                            }
+                            if (o.arpgfL > 0) {
+                                arpgfLPathNum[i][j] += 1;
+                                arpgfLPathStretch[i][j] += Double.valueOf(o.arpgfL) / Double.valueOf(o.bfs);
+                            }
                         }
                     }
+                    System.out.println("Trial #" + j + " with " + numObstacles + " numObstacles. All algorithms were used for pair[" + ++iter + "]. BFS found:" + bfsPathNum[j]);
+                }
+                for (int i = 0; i < degSize; i++) {
+                    argfGPathStretch[i][j] = argfGPathStretch[i][j] / argfGPathNum[i][j];
+                    argfLPathStretch[i][j] = argfLPathStretch[i][j] / argfLPathNum[i][j];
+                    arpgfGPathStretch[i][j] = arpgfGPathStretch[i][j] / arpgfGPathNum[i][j];
+                    arpgfLPathStretch[i][j] = arpgfLPathStretch[i][j] / arpgfLPathNum[i][j];
                 }
-                System.out.println("Trial #" + j + " with " + numObstacles + " numObstacles. All algorithms were used for pair[" + ++iter + "]. BFS found:" + bfsPathNum[j]);
-            }
-            for (int i = 0; i < degSize; i++) {
-                argfGPathStretch[i][j] = argfGPathStretch[i][j] / argfGPathNum[i][j];
-                argfLPathStretch[i][j] = argfLPathStretch[i][j] / argfLPathNum[i][j];
-                arpgfGPathStretch[i][j] = arpgfGPathStretch[i][j] / arpgfGPathNum[i][j];
-                arpgfLPathStretch[i][j] = arpgfLPathStretch[i][j] / arpgfLPathNum[i][j];
             }
-        }
+        });
         System.out.println("Coverage ratio:" + Arrays.toString(coverage));
         System.out.println("BFS path num=" + Arrays.toString(bfsPathNum));
         System.out.println("ARGF G path num=" + Arrays.deepToString(argfGPathNum));
@@ -169,53 +265,58 @@ public class ExperimentHelper {
      * @param numObstacles - array of different obstacle numbers to simulate different obstacle occupation scenarios
      * @param deg          - fixed repulsive field attenuation order degree (only for ARGF)
      */
-    public void doExperiment2(int trials, int[] numObstacles, double deg) {
-        int oSize = numObstacles.length;
-
-        double[][] argfObstacleNum = new double[oSize][trials];
-        double[][] arpgfObstacleNum = new double[oSize][trials];
-
+    public void doExperiment2(final int trials, final int[] numObstacles, final double deg) {
+        final int oSize = numObstacles.length;
 
-        for (int i = 0; i < trials; i++) {
-            System.out.println("Trial #" + (i + 1) + " has been started!");
-            for (int j = 0; j < oSize; j++) {
-                System.out.println("Number of obstacles " + numObstacles[j] + " ...");
-                Topology t = new Topology(100);
-                for (Node n : t.getNodes())
-                    n.setR(rand.nextDouble() * 1 + 4);
-                t.generateObstacles(numObstacles[j], 1, 10);
-                System.out.println("Network and obstacles were created!");
-                t.reInitializeNeighbors();
-                System.out.println("Neighbors were initialized!");
-                t.initializeCircumscribedObstacles();
-                List<Obstacle> obstacles = t.getCircumscribedObstacles();
-                System.out.println(t.getCircumscribedObstacles().size() + " circumscribed obstacles were created.");
+        final double[][] argfObstacleNum = new double[oSize][trials];
+        final double[][] arpgfObstacleNum = new double[oSize][trials];
 
-                //calculate local obstacle information overhead
-                int nodesNum = 0;
-                for (Node n : t.getNodes())
-                    if (n.isOn()) {
-                        nodesNum++;
-                        argfObstacleNum[j][i] += inObstacleRepulseZone(n, obstacles, n.getR(), deg).size();
-                        arpgfObstacleNum[j][i] += inObstacleRepulseZone(n, obstacles, n.getR(), 1).size();
-                    }
 
-                if (numObstacles[j] == 50) { //store info for 40 % of occupation
-                    List<Integer> argfHoleNumList = new ArrayList<>(nodesNum);
-                    List<Integer> arpgfHoleNumList = new ArrayList<>(nodesNum);
+        runTrials(trials, new TrialTask() {
+            @Override
+            public void runTrial(int i, Random rand) {
+                System.out.println("Trial #" + (i + 1) + " has been started!");
+                for (int j = 0; j < oSize; j++) {
+                    System.out.println("Number of obstacles " + numObstacles[j] + " ...");
+                    Topology t = new Topology(100, new Random(rand.nextLong()));
+                    t.setWorkers(pairWorkers);
+                    for (Node n : t.getNodes())
+                        n.setR(rand.nextDouble() * 1 + 4);
+                    t.generateObstacles(numObstacles[j], 1, 10);
+                    System.out.println("Network and obstacles were created!");
+                    t.reInitializeNeighbors();
+                    System.out.println("Neighbors were initialized!");
+                    t.initializeCircumscribedObstacles();
+                    System.out.println(t.getCircumscribedObstacles().size() + " circumscribed obstacles were created.");
+                    LocalObstacles argfLocal = t.getLocalObstacles(deg);
+                    LocalObstacles arpgfLocal = t.getLocalObstacles(1);
+
+                    //calculate local obstacle information overhead
+                    int nodesNum = 0;
                     for (Node n : t.getNodes())
                         if (n.isOn()) {
-                            argfHoleNumList.add(inObstacleRepulseZone(n, obstacles, n.getR(), deg).size());
-                            arpgfHoleNumList.add(inObstacleRepulseZone(n, obstacles, n.getR(), 1).size());
+                            nodesNum++;
+                            argfObstacleNum[j][i] += argfLocal.count(n.getId());
+                            arpgfObstacleNum[j][i] += arpgfLocal.count(n.getId());
                         }
-                    saveDataToFile("results/ARGF_obstacleNum_"+ numObstacles[j] +"_trial_" + i + ".txt", argfHoleNumList);
-                    saveDataToFile("results/ARPGF_obstacleNum_"+ numObstacles[j] +"_trial_" + i + ".txt", arpgfHoleNumList);
-                }
 
-                argfObstacleNum[j][i] = argfObstacleNum[j][i] / nodesNum;
-                arpgfObstacleNum[j][i] = arpgfObstacleNum[j][i] / nodesNum;
+                    if (numObstacles[j] == 50) { //store info for 40 % of occupation
+                        List<Integer> argfHoleNumList = new ArrayList<>(nodesNum);
+                        List<Integer> arpgfHoleNumList = new ArrayList<>(nodesNum);
+                        for (Node n : t.getNodes())
+                            if (n.isOn()) {
+                                argfHoleNumList.add(argfLocal.count(n.getId()));
+                                arpgfHoleNumList.add(arpgfLocal.count(n.getId()));
+                            }
+                        saveDataToFile("results/ARGF_obstacleNum_"+ numObstacles[j] +"_trial_" + i + ".txt", argfHoleNumList);
+                        saveDataToFile("results/ARPGF_obstacleNum_"+ numObstacles[j] +"_trial_" + i + ".txt", arpgfHoleNumList);
+                    }
+
+                    argfObstacleNum[j][i] = argfObstacleNum[j][i] / nodesNum;
+                    arpgfObstacleNum[j][i] = arpgfObstacleNum[j][i] / nodesNum;
+                }
             }
-        }
+        });
         System.out.println("ARGF avg. num of obstacles=" + Arrays.deepToString(argfObstacleNum));
         System.out.println("ARPGF avg. num of obstacles=" + Arrays.deepToString(arpgfObstacleNum));
     }
@@ -228,169 +329,141 @@ public class ExperimentHelper {
      * @param numObstacles - array of obstacle numbers
      * @param deg          - fixed repulsive field attenuation order degree (only for ARGF)
      */
-    public void doExperiment3(int trials, int pairNum, int[] numObstacles, double deg) {
-        BFS bfs = new BFS();
-        GF gf = new GF();
-        GPGF gpgf = new GPGF();
-        ARGF_Global argfGlobal = new ARGF_Global();
-        argfGlobal.setDeg(deg);
-        ARGF_Local argfLocal = new ARGF_Local();
-        argfLocal.setDeg(deg);
-        ARPGF_Local arpgfLocal = new ARPGF_Local();
-        arpgfLocal.setDeg(1);
-        ARPSR arpsr = new ARPSR();
-        arpsr.setDeg(deg);
-        int ttl = 100000; //unrestricted TTL
-
-        int[][] bfsPathNum = new int[numObstacles.length][trials];
-        double[][] avgDeg = new double[numObstacles.length][trials];
-        int[][] gfPathNum = new int[numObstacles.length][trials];
-        int[][] gpsrPathNum = new int[numObstacles.length][trials];
-        int[][] gpgfPathNum = new int[numObstacles.length][trials];
-        int[][] argfGPathNum = new int[numObstacles.length][trials];
-        int[][] argfLPathNum = new int[numObstacles.length][trials];
-        int[][] arpgfLPathNum = new int[numObstacles.length][trials];
-        int[][] arpsrLPathNum = new int[numObstacles.length][trials];
-        double[][] arpgfLHeaderSize = new double[numObstacles.length][trials];
-        double[][] gpgfHeaderSize = new double[numObstacles.length][trials];
-        double[][] gfPathStretch = new double[numObstacles.length][trials];
-        double[][] gpsrPathStretch = new double[numObstacles.length][trials];
-        double[][] gpgfPathStretch = new double[numObstacles.length][trials];
-        double[][] argfGPathStretch = new double[numObstacles.length][trials];
-        double[][] argfLPathStretch = new double[numObstacles.length][trials];
-        double[][] arpgfLPathStretch = new double[numObstacles.length][trials];
-        double[][] arpsrPathStretch = new double[numObstacles.length][trials];
-        double[][] coverageRatio = new double[numObstacles.length][trials];
-
-        int iter = 0;
-        for (int i = 0; i < trials; i++) {
-            System.out.println("Trial #" + (i + 1) + " has been started!");
-            Topology t = new Topology(100);
-            for (Node n : t.getNodes())
-                n.setR(rand.nextDouble() * 1 + 4);
-
-            for (int j = 0; j < numObstacles.length; j++) {
-                t.generateObstacles(numObstacles[j], 1, 10);
-                System.out.println("Network and obstacles were created!");
-                t.reInitializeNeighbors();
-                System.out.println("Neighbors were initialized!");
-                //limit edges to build planarized graph (RNG)
+    public void doExperiment3(final int trials, final int pairNum, final int[] numObstacles, final double deg) {
+        final int ttl = 100000; //unrestricted TTL
+
+        final int[][] bfsPathNum = new int[numObstacles.length][trials];
+        final double[][] avgDeg = new double[numObstacles.length][trials];
+        final int[][] gfPathNum = new int[numObstacles.length][trials];
+        final int[][] gpsrPathNum = new int[numObstacles.length][trials];
+        final int[][] gpgfPathNum = new int[numObstacles.length][trials];
+        final int[][] argfGPathNum = new int[numObstacles.length][trials];
+        final int[][] argfLPathNum = new int[numObstacles.length][trials];
+        final int[][] arpgfLPathNum = new int[numObstacles.length][trials];
+        final int[][] arpsrLPathNum = new int[numObstacles.length][trials];
+        final double[][] arpgfLHeaderSize = new double[numObstacles.length][trials];
+        final double[][] gpgfHeaderSize = new double[numObstacles.length][trials];
+        final double[][] gfPathStretch = new double[numObstacles.length][trials];
+        final double[][] gpsrPathStretch = new double[numObstacles.length][trials];
+        final double[][] gpgfPathStretch = new double[numObstacles.length][trials];
+        final double[][] argfGPathStretch = new double[numObstacles.length][trials];
+        final double[][] argfLPathStretch = new double[numObstacles.length][trials];
+        final double[][] arpgfLPathStretch = new double[numObstacles.length][trials];
+        final double[][] arpsrPathStretch = new double[numObstacles.length][trials];
+        final double[][] coverageRatio = new double[numObstacles.length][trials];
+
+        runTrials(trials, new TrialTask() {
+            @Override
+            public void runTrial(int i, Random rand) {
+                int iter = 0;
+                System.out.println("Trial #" + (i + 1) + " has been started!");
+                Topology t = new Topology(100, new Random(rand.nextLong()));
+                t.setWorkers(pairWorkers);
                 for (Node n : t.getNodes())
-                    if (n.isOn()) {
-                        n.clearProhibitedNeighbors();
-                        Node u = n;
-                        for (Node v : u.getNeighbors())
-                            for (Node w : u.getNeighbors())
-                                if (w.equals(v))
-                                    continue;
-                                else if (EuclDist.d(u, v) > Math.max(EuclDist.d(u, w), EuclDist.d(v, w))) {
-                                    u.addProhibitedNeighbor(v);
-                                    break;
-                                }
-
-                    }
-                System.out.println("Planarized RNG graph was created!");
-                t.initializeCircumscribedObstacles();
-                System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
-
-                int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
-                int totalDegree = 0;
-                for (Node s : t.getNodes())
-                    if (s.isOn())
-                        totalDegree += s.getNeighbors().size();
-                avgDeg[j][i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
-                int size = t.getGridSize();
+                    n.setR(rand.nextDouble() * 1 + 4);
 
-                // generate random pairs
-                List<Integer> nodeIds = new ArrayList<>(size * size);
-                for (Node s : t.getNodes())
-                    if (s.isOn())
-                        nodeIds.add(s.getId());
-                int nodesNum = nodeIds.size();
-                System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
-                Random r = new Random();
-                List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
-                while (pairs.size() < pairNum) {
-                    int src = nodeIds.get(r.nextInt(nodesNum));
-                    int dst = nodeIds.get(r.nextInt(nodesNum));
+                for (int j = 0; j < numObstacles.length; j++) {
+                    t.generateObstacles(numObstacles[j], 1, 10);
+                    System.out.println("Network and obstacles were created!");
+                    t.reInitializeNeighbors();
+                    System.out.println("Neighbors were initialized!");
+                    //limit edges to build planarized graph (RNG)
+                    t.planarize(Planarization.RNG);
+                    System.out.println("Planarized RNG graph was created!");
+                    t.initializeCircumscribedObstacles();
+                    System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
+
+                    int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
+                    int totalDegree = 0;
+                    CompactTopology ct = t.getCompactTopology();
+                    for (Node s : t.getNodes())
+                        if (s.isOn())
+                            totalDegree += ct.degree(s.getId());
+                    avgDeg[j][i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
+                    int size = t.getGridSize();
 
-                    if (src != dst) {
-                        pairs.add(new Pair<>(src, dst));
+                    // generate random pairs
+                    List<Integer> nodeIds = new ArrayList<>(size * size);
+                    for (Node s : t.getNodes())
+                        if (s.isOn())
+                            nodeIds.add(s.getId());
+                    int nodesNum = nodeIds.size();
+                    System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
+                    Random r = rand;
+                    List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
+                    while (pairs.size() < pairNum) {
+                        int src = nodeIds.get(r.nextInt(nodesNum));
+                        int dst = nodeIds.get(r.nextInt(nodesNum));
+
+                        if (src != dst) {
+                            pairs.add(new Pair<>(src, dst));
+                        }
                     }
-                }
-                System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
+                    System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
+
+    //        conduct simulation
+                    PairOutcome[][] outcomes = routePairs(t, pairs, deg, new int[]{ttl});
+                    for (PairOutcome[] pairOutcomes : outcomes) {
+                        PairOutcome o = pairOutcomes[0];
+                        if (o.bfs > 0) {
+                            bfsPathNum[j][i] += 1;
+
+                            if (o.gf > 0) {
+                                gfPathNum[j][i] += 1;
+                                gfPathStretch[j][i] += Double.valueOf(o.gf) / Double.valueOf(o.bfs);
+                            }
 
-//        conduct simulation
-                for (Pair<Integer, Integer> pair : pairs) {
-
-                    List<Node> pathBFS = bfs.breadthFirstSearch(pair.getKey(), pair.getValue(), t);
-                    if (!pathBFS.isEmpty() && pathBFS.size() - 1 <= ttl) {
-                        bfsPathNum[j][i] += 1;
-                        List<Node> pathGF = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, false, ttl + 1);
-                        List<Node> pathGPSR = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, true, ttl + 1);
-                        List<Integer> gpgfHSize = new ArrayList<>(1);
-                        List<Node> pathGPGF = gpgf.greedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1, gpgfHSize);
-                        List<Node> pathARGFG = argfGlobal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-                        List<Node> pathARGFL = argfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-                        List<Integer> arpgfHSize = new ArrayList<>(1);
-                        List<Node> pathARPGF = arpgfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1, arpgfHSize);
-                        List<Node> pathARPSR = arpsr.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-
-                        if (!pathGF.isEmpty() && pathGF.get(pathGF.size() - 1).getId() == pair.getValue()) {
-                            gfPathNum[j][i] += 1;
-                            gfPathStretch[j][i] += Double.valueOf(pathGF.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.gpsr > 0) {
+                                gpsrPathNum[j][i] += 1;
+                                gpsrPathStretch[j][i] += Double.valueOf(o.gpsr) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathGPSR.isEmpty() && pathGPSR.get(pathGPSR.size() - 1).getId() == pair.getValue()) {
-                            gpsrPathNum[j][i] += 1;
-                            gpsrPathStretch[j][i] += Double.valueOf(pathGPSR.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.gpgf > 0) {
+                                gpgfPathNum[j][i] += 1;
+                                gpgfPathStretch[j][i] += Double.valueOf(o.gpgf) / Double.valueOf(o.bfs);
+                                gpgfHeaderSize[j][i] += o.gpgfHeaderSize;
+                            }
 
-                        if (!pathGPGF.isEmpty() && pathGPGF.get(pathGPGF.size() - 1).getId() == pair.getValue()) {
-                            gpgfPathNum[j][i] += 1;
-                            gpgfPathStretch[j][i] += Double.valueOf(pathGPGF.size()) / Double.valueOf(pathBFS.size());
-                            gpgfHeaderSize[j][i] += gpgfHSize.isEmpty() ? 0 : gpgfHSize.get(0);
-                        }
+                            if (o.argfG > 0) {
+                                argfGPathNum[j][i] += 1;
+                                argfGPathStretch[j][i] += Double.valueOf(o.argfG) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARGFG.isEmpty() && pathARGFG.get(pathARGFG.size() - 1).getId() == pair.getValue()) {
-                            argfGPathNum[j][i] += 1;
-                            argfGPathStretch[j][i] += Double.valueOf(pathARGFG.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.argfL > 0) {
+                                argfLPathNum[j][i] += 1;
+                                argfLPathStretch[j][i] += Double.valueOf(o.argfL) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARGFL.isEmpty() && pathARGFL.get(pathARGFL.size() - 1).getId() == pair.getValue()) {
-                            argfLPathNum[j][i] += 1;
-                            argfLPathStretch[j][i] += Double.valueOf(pathARGFL.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.arpgfL > 0) {
+                                arpgfLPathNum[j][i] += 1;
+                                arpgfLPathStretch[j][i] += Double.valueOf(o.arpgfL) / Double.valueOf(o.bfs);
+                                arpgfLHeaderSize[j][i] += o.arpgfHeaderSize;
+                            }
 
-                        if (!pathARPGF.isEmpty() && pathARPGF.get(pathARPGF.size() - 1).getId() == pair.getValue()) {
-                            arpgfLPathNum[j][i] += 1;
-                            arpgfLPathStretch[j][i] += Double.valueOf(pathARPGF.size()) / Double.valueOf(pathBFS.size());
-                            arpgfLHeaderSize[j][i] += arpgfHSize.isEmpty() ? 0 : arpgfHSize.get(0);
+                            if (o.arpsr > 0) {
+                                arpsrLPathNum[j][i] += 1;
+                                arpsrPathStretch[j][i] += Double.valueOf(o.arpsr) / Double.valueOf(o.bfs);
+                            }
                         }
 
-                        if (!pathARPSR.isEmpty() && pathARPSR.get(pathARPSR.size() - 1).getId() == pair.getValue()) {
-                            arpsrLPathNum[j][i] += 1;
-                            arpsrPathStretch[j][i] += Double.valueOf(pathARPSR.size()) / Double.valueOf(pathBFS.size());
-                        }
+                        System.out.println("All algorithms were used for pair[" + ++iter + "].");
                     }
-
-                    System.out.println("All algorithms were used for pair[" + ++iter + "].");
+                    coverageRatio[j][i] = Double.valueOf(nodesNum) / (size * size);
+                }
+                for (int j = 0; j < numObstacles.length; j++) {
+                    gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
+                    gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
+                    gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
+                    argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
+                    argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
+                    arpgfLPathStretch[j][i] = arpgfLPathStretch[j][i] / arpgfLPathNum[j][i];
+                    arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrLPathNum[j][i];
+                    //packet header sizes
+                    gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
+                    arpgfLHeaderSize[j][i] = Double.valueOf(arpgfLHeaderSize[j][i]) / Double.valueOf(arpgfLPathNum[j][i]);
                 }
-                coverageRatio[j][i] = Double.valueOf(nodesNum) / (size * size);
-            }
-            for (int j = 0; j < numObstacles.length; j++) {
-                gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
-                gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
-                gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
-                argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
-                argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
-                arpgfLPathStretch[j][i] = arpgfLPathStretch[j][i] / arpgfLPathNum[j][i];
-                arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrLPathNum[j][i];
-                //packet header sizes
-                gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
-                arpgfLHeaderSize[j][i] = Double.valueOf(arpgfLHeaderSize[j][i]) / Double.valueOf(arpgfLPathNum[j][i]);
             }
-        }
+        });
 
         System.out.println("Coverage ratio:" + Arrays.deepToString(coverageRatio));
         System.out.println("Avg. node degree:" + Arrays.deepToString(avgDeg));
@@ -423,166 +496,139 @@ public class ExperimentHelper {
      * @param deg          - fixed repulsive field attenuation order degree (only for ARGF)
      * @param ttl          - array of different packet's TTL policies
      */
-    public void doExperiment4(int trials, int pairNum, int numObstacles, double deg, int[] ttl) {
-        BFS bfs = new BFS();
-        GF gf = new GF();
-        GPGF gpgf = new GPGF();
-        ARGF_Global argfGlobal = new ARGF_Global();
-        argfGlobal.setDeg(deg);
-        ARGF_Local argfLocal = new ARGF_Local();
-        argfLocal.setDeg(deg);
-        ARPGF_Local arpgfLocal = new ARPGF_Local();
-        arpgfLocal.setDeg(1);
-        ARPSR arpsr = new ARPSR();
-        arpsr.setDeg(deg);
-
-        int[][] bfsPathNum = new int[ttl.length][trials];
-        double[] avgDeg = new double[trials];
-        int[][] gfPathNum = new int[ttl.length][trials];
-        int[][] gpsrPathNum = new int[ttl.length][trials];
-        int[][] gpgfPathNum = new int[ttl.length][trials];
-        int[][] argfGPathNum = new int[ttl.length][trials];
-        int[][] argfLPathNum = new int[ttl.length][trials];
-        int[][] arpgfLPathNum = new int[ttl.length][trials];
-        int[][] arpsrLPathNum = new int[ttl.length][trials];
-        double[][] arpgfLHeaderSize = new double[ttl.length][trials];
-        double[][] gpgfHeaderSize = new double[ttl.length][trials];
-        double[][] gfPathStretch = new double[ttl.length][trials];
-        double[][] gpsrPathStretch = new double[ttl.length][trials];
-        double[][] gpgfPathStretch = new double[ttl.length][trials];
-        double[][] argfGPathStretch = new double[ttl.length][trials];
-        double[][] argfLPathStretch = new double[ttl.length][trials];
-        double[][] arpgfLPathStretch = new double[ttl.length][trials];
-        double[][] arpsrPathStretch = new double[ttl.length][trials];
-        double[] coverageRatio = new double[trials];
-
-        int iter = 0;
-        for (int i = 0; i < trials; i++) {
-            System.out.println("Trial #" + (i + 1) + " has been started!");
-            Topology t = new Topology(100);
-            for (Node n : t.getNodes())
-                n.setR(rand.nextDouble() * 1 + 4);
-            t.generateObstacles(numObstacles, 1, 10);
-            System.out.println("Network and obstacles were created!");
-            t.reInitializeNeighbors();
-            System.out.println("Neighbors were initialized!");
-            //limit edges to build planarized graph (RNG)
-            for (Node n : t.getNodes())
-                if (n.isOn()) {
-                    n.clearProhibitedNeighbors();
-                    Node u = n;
-                    for (Node v : u.getNeighbors())
-                        for (Node w : u.getNeighbors())
-                            if (w.equals(v))
-                                continue;
-                            else if (EuclDist.d(u, v) > Math.max(EuclDist.d(u, w), EuclDist.d(v, w))) {
-                                u.addProhibitedNeighbor(v);
-                                break;
-                            }
+    public void doExperiment4(final int trials, final int pairNum, final int numObstacles, final double deg, final int[] ttl) {
+
+        final int[][] bfsPathNum = new int[ttl.length][trials];
+        final double[] avgDeg = new double[trials];
+        final int[][] gfPathNum = new int[ttl.length][trials];
+        final int[][] gpsrPathNum = new int[ttl.length][trials];
+        final int[][] gpgfPathNum = new int[ttl.length][trials];
+        final int[][] argfGPathNum = new int[ttl.length][trials];
+        final int[][] argfLPathNum = new int[ttl.length][trials];
+        final int[][] arpgfLPathNum = new int[ttl.length][trials];
+        final int[][] arpsrLPathNum = new int[ttl.length][trials];
+        final double[][] arpgfLHeaderSize = new double[ttl.length][trials];
+        final double[][] gpgfHeaderSize = new double[ttl.length][trials];
+        final double[][] gfPathStretch = new double[ttl.length][trials];
+        final double[][] gpsrPathStretch = new double[ttl.length][trials];
+        final double[][] gpgfPathStretch = new double[ttl.length][trials];
+        final double[][] argfGPathStretch = new double[ttl.length][trials];
+        final double[][] argfLPathStretch = new double[ttl.length][trials];
+        final double[][] arpgfLPathStretch = new double[ttl.length][trials];
+        final double[][] arpsrPathStretch = new double[ttl.length][trials];
+        final double[] coverageRatio = new double[trials];
+
+        runTrials(trials, new TrialTask() {
+            @Override
+            public void runTrial(int i, Random rand) {
+                int iter = 0;
+                System.out.println("Trial #" + (i + 1) + " has been started!");
+                Topology t = new Topology(100, new Random(rand.nextLong()));
+                t.setWorkers(pairWorkers);
+                for (Node n : t.getNodes())
+                    n.setR(rand.nextDouble() * 1 + 4);
+                t.generateObstacles(numObstacles, 1, 10);
+                System.out.println("Network and obstacles were created!");
+                t.reInitializeNeighbors();
+                System.out.println("Neighbors were initialized!");
+                //limit edges to build planarized graph (RNG)
+                t.planarize(Planarization.RNG);
+                System.out.println("Planarized RNG graph was created!");
+                t.initializeCircumscribedObstacles();
+                System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
 
+                int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
+                int totalDegree = 0;
+                CompactTopology ct = t.getCompactTopology();
+                for (Node s : t.getNodes())
+                    if (s.isOn())
+                        totalDegree += ct.degree(s.getId());
+                avgDeg[i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
+                int size = t.getGridSize();
+
+    //        generate random pairs
+                List<Integer> nodeIds = new ArrayList<>(size * size);
+                for (Node s : t.getNodes())
+                    if (s.isOn())
+                        nodeIds.add(s.getId());
+                int nodesNum = nodeIds.size();
+                System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
+                Random r = rand;
+                List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
+                while (pairs.size() < pairNum) {
+                    int src = nodeIds.get(r.nextInt(nodesNum));
+                    int dst = nodeIds.get(r.nextInt(nodesNum));
+
+                    if (src != dst) {
+                        pairs.add(new Pair<>(src, dst));
+                    }
                 }
-            System.out.println("Planarized RNG graph was created!");
-            t.initializeCircumscribedObstacles();
-            System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
-
-            int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
-            int totalDegree = 0;
-            for (Node s : t.getNodes())
-                if (s.isOn())
-                    totalDegree += s.getNeighbors().size();
-            avgDeg[i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
-            int size = t.getGridSize();
-
-//        generate random pairs
-            List<Integer> nodeIds = new ArrayList<>(size * size);
-            for (Node s : t.getNodes())
-                if (s.isOn())
-                    nodeIds.add(s.getId());
-            int nodesNum = nodeIds.size();
-            System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
-            Random r = new Random();
-            List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
-            while (pairs.size() < pairNum) {
-                int src = nodeIds.get(r.nextInt(nodesNum));
-                int dst = nodeIds.get(r.nextInt(nodesNum));
-
-                if (src != dst) {
-                    pairs.add(new Pair<>(src, dst));
-                }
-            }
-            System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
+                System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
 
-//        conduct simulation
-            for (Pair<Integer, Integer> pair : pairs) {
-                for (int j = 0; j < ttl.length; j++) {
-                    List<Node> pathBFS = bfs.breadthFirstSearch(pair.getKey(), pair.getValue(), t);
-                    if (!pathBFS.isEmpty() && pathBFS.size() - 1 <= ttl[j]) {
-                        bfsPathNum[j][i] += 1;
-                        List<Node> pathGF = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, false, ttl[j] + 1);
-                        List<Node> pathGPSR = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, true, ttl[j] + 1);
-                        List<Integer> gpgfHSize = new ArrayList<>(1);
-                        List<Node> pathGPGF = gpgf.greedyForwarding(pair.getKey(), pair.getValue(), t, ttl[j] + 1, gpgfHSize);
-                        List<Node> pathARGFG = argfGlobal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl[j] + 1);
-                        List<Node> pathARGFL = argfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl[j] + 1);
-                        List<Integer> arpgfHSize = new ArrayList<>(1);
-                        List<Node> pathARPGF = arpgfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl[j] + 1, arpgfHSize);
-                        List<Node> pathARPSR = arpsr.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl[j] + 1);
-
-                        if (!pathGF.isEmpty() && pathGF.get(pathGF.size() - 1).getId() == pair.getValue()) {
-                            gfPathNum[j][i] += 1;
-                            gfPathStretch[j][i] += Double.valueOf(pathGF.size()) / Double.valueOf(pathBFS.size());
-                        }
+    //        conduct simulation
+                PairOutcome[][] outcomes = routePairs(t, pairs, deg, ttl);
+                for (PairOutcome[] pairOutcomes : outcomes) {
+                    for (int j = 0; j < ttl.length; j++) {
+                        PairOutcome o = pairOutcomes[j];
+                        if (o.bfs > 0) {
+                            bfsPathNum[j][i] += 1;
+
+                            if (o.gf > 0) {
+                                gfPathNum[j][i] += 1;
+                                gfPathStretch[j][i] += Double.valueOf(o.gf) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathGPSR.isEmpty() && pathGPSR.get(pathGPSR.size() - 1).getId() == pair.getValue()) {
-                            gpsrPathNum[j][i] += 1;
-                            gpsrPathStretch[j][i] += Double.valueOf(pathGPSR.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.gpsr > 0) {
+                                gpsrPathNum[j][i] += 1;
+                                gpsrPathStretch[j][i] += Double.valueOf(o.gpsr) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathGPGF.isEmpty() && pathGPGF.get(pathGPGF.size() - 1).getId() == pair.getValue()) {
-                            gpgfPathNum[j][i] += 1;
-                            gpgfPathStretch[j][i] += Double.valueOf(pathGPGF.size()) / Double.valueOf(pathBFS.size());
-                            gpgfHeaderSize[j][i] += gpgfHSize.isEmpty() ? 0 : gpgfHSize.get(0);
-                        }
+                            if (o.gpgf > 0) {
+                                gpgfPathNum[j][i] += 1;
+                                gpgfPathStretch[j][i] += Double.valueOf(o.gpgf) / Double.valueOf(o.bfs);
+                                gpgfHeaderSize[j][i] += o.gpgfHeaderSize;
+                            }
 
-                        if (!pathARGFG.isEmpty() && pathARGFG.get(pathARGFG.size() - 1).getId() == pair.getValue()) {
-                            argfGPathNum[j][i] += 1;
-                            argfGPathStretch[j][i] += Double.valueOf(pathARGFG.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.argfG > 0) {
+                                argfGPathNum[j][i] += 1;
+                                argfGPathStretch[j][i] += Double.valueOf(o.argfG) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARGFL.isEmpty() && pathARGFL.get(pathARGFL.size() - 1).getId() == pair.getValue()) {
-                            argfLPathNum[j][i] += 1;
-                            argfLPathStretch[j][i] += Double.valueOf(pathARGFL.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.argfL > 0) {
+                                argfLPathNum[j][i] += 1;
+                                argfLPathStretch[j][i] += Double.valueOf(o.argfL) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARPGF.isEmpty() && pathARPGF.get(pathARPGF.size() - 1).getId() == pair.getValue()) {
-                            arpgfLPathNum[j][i] += 1;
-                            arpgfLPathStretch[j][i] += Double.valueOf(pathARPGF.size()) / Double.valueOf(pathBFS.size());
-                            arpgfLHeaderSize[j][i] += arpgfHSize.isEmpty() ? 0 : arpgfHSize.get(0);
-                        }
+                            if (o.arpgfL > 0) {
+                                arpgfLPathNum[j][i] += 1;
+                                arpgfLPathStretch[j][i] += Double.valueOf(o.arpgfL) / Double.valueOf(o.bfs);
+                                arpgfLHeaderSize[j][i] += o.arpgfHeaderSize;
+                            }
 
-                        if (!pathARPSR.isEmpty() && pathARPSR.get(pathARPSR.size() - 1).getId() == pair.getValue()) {
-                            arpsrLPathNum[j][i] += 1;
-                            arpsrPathStretch[j][i] += Double.valueOf(pathARPSR.size()) / Double.valueOf(pathBFS.size());
+                            if (o.arpsr > 0) {
+                                arpsrLPathNum[j][i] += 1;
+                                arpsrPathStretch[j][i] += Double.valueOf(o.arpsr) / Double.valueOf(o.bfs);
+                            }
                         }
                     }
+                    System.out.println("All algorithms were used for pair[" + ++iter + "].");
+                }
+                coverageRatio[i] = Double.valueOf(nodesNum) / (size * size);
+
+                for (int j = 0; j < ttl.length; j++) {
+                    gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
+                    gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
+                    gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
+                    argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
+                    argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
+                    arpgfLPathStretch[j][i] = arpgfLPathStretch[j][i] / arpgfLPathNum[j][i];
+                    arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrLPathNum[j][i];
+                    //packet header sizes
+                    gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
+                    arpgfLHeaderSize[j][i] = Double.valueOf(arpgfLHeaderSize[j][i]) / Double.valueOf(arpgfLPathNum[j][i]);
                 }
-                System.out.println("All algorithms were used for pair[" + ++iter + "].");
-            }
-            coverageRatio[i] = Double.valueOf(nodesNum) / (size * size);
-
-            for (int j = 0; j < ttl.length; j++) {
-                gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
-                gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
-                gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
-                argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
-                argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
-                arpgfLPathStretch[j][i] = arpgfLPathStretch[j][i] / arpgfLPathNum[j][i];
-                arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrLPathNum[j][i];
-                //packet header sizes
-                gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
-                arpgfLHeaderSize[j][i] = Double.valueOf(arpgfLHeaderSize[j][i]) / Double.valueOf(arpgfLPathNum[j][i]);
             }
-        }
+        });
 
         System.out.println("Coverage ratio:" + Arrays.toString(coverageRatio));
         System.out.println("Avg. node degree:" + Arrays.toString(avgDeg));
@@ -616,190 +662,156 @@ public class ExperimentHelper {
      * @param ttl          - fixed packet's TTL policy
      * @param maxR         - max radio range
      */
-    public void doExperiment5(int trials, int pairNum, int numObstacles, double deg, int ttl, double maxR) {
-        BFS bfs = new BFS();
-        GF gf = new GF();
-        GPGF gpgf = new GPGF();
-        ARGF_Global argfGlobal = new ARGF_Global();
-        argfGlobal.setDeg(deg);
-        ARGF_Local argfLocal = new ARGF_Local();
-        argfLocal.setDeg(deg);
-        ARPGF_Local arpgfLocal = new ARPGF_Local();
-        arpgfLocal.setDeg(1);
-        ARPSR arpsr = new ARPSR();
-        arpsr.setDeg(deg);
-
-        int maxRows = 5;
-        int[][] bfsPathNum = new int[maxRows][trials];
-        double[][] avgDeg = new double[maxRows][trials];
-        int[][] gfPathNum = new int[maxRows][trials];
-        int[][] gpsrPathNum = new int[maxRows][trials];
-        int[][] gpgfPathNum = new int[maxRows][trials];
-        int[][] argfGPathNum = new int[maxRows][trials];
-        int[][] argfLPathNum = new int[maxRows][trials];
-        int[][] arpgfPathNum = new int[maxRows][trials];
-        int[][] arpsrPathNum = new int[maxRows][trials];
-        double[][] arpgfHeaderSize = new double[maxRows][trials];
-        double[][] gpgfHeaderSize = new double[maxRows][trials];
-        double[][] gfPathStretch = new double[maxRows][trials];
-        double[][] gpsrPathStretch = new double[maxRows][trials];
-        double[][] gpgfPathStretch = new double[maxRows][trials];
-        double[][] argfGPathStretch = new double[maxRows][trials];
-        double[][] argfLPathStretch = new double[maxRows][trials];
-        double[][] arpgfPathStretch = new double[maxRows][trials];
-        double[][] arpsrPathStretch = new double[maxRows][trials];
-        double[] coverageRatio = new double[trials];
-
-        int iter = 0;
-        for (int i = 0; i < trials; i++) {
-            System.out.println("Trial #" + (i + 1) + " has been started!");
-            Topology t = new Topology(100);
-            t.generateObstacles(numObstacles, 1, 10);
-            System.out.println("Network and obstacles were created!");
-            for (Node n : t.getNodes())
-                n.setR(rand.nextDouble() * 4 + 1);
-            t.reInitializeNeighbors();
-            System.out.println("Neighbors were initialized!");
-
-            int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
-            int size = t.getGridSize();
-
-//        generate random pairs
-            List<Integer> nodeIds = new ArrayList<>(size * size);
-            for (Node n : t.getNodes())
-                if (n.isOn())
-                    nodeIds.add(n.getId());
-            int nodesNum = nodeIds.size();
-            System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
-            Random r = new Random();
-            List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
-            while (pairs.size() < pairNum) {
-                int src = nodeIds.get(r.nextInt(nodesNum));
-                int dst = nodeIds.get(r.nextInt(nodesNum));
-
-                if (src != dst)
-                    pairs.add(new Pair<>(src, dst));
-            }
-            System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
+    public void doExperiment5(final int trials, final int pairNum, final int numObstacles, final double deg, final int ttl, final double maxR) {
+
+        final int maxRows = 5;
+        final int[][] bfsPathNum = new int[maxRows][trials];
+        final double[][] avgDeg = new double[maxRows][trials];
+        final int[][] gfPathNum = new int[maxRows][trials];
+        final int[][] gpsrPathNum = new int[maxRows][trials];
+        final int[][] gpgfPathNum = new int[maxRows][trials];
+        final int[][] argfGPathNum = new int[maxRows][trials];
+        final int[][] argfLPathNum = new int[maxRows][trials];
+        final int[][] arpgfPathNum = new int[maxRows][trials];
+        final int[][] arpsrPathNum = new int[maxRows][trials];
+        final double[][] arpgfHeaderSize = new double[maxRows][trials];
+        final double[][] gpgfHeaderSize = new double[maxRows][trials];
+        final double[][] gfPathStretch = new double[maxRows][trials];
+        final double[][] gpsrPathStretch = new double[maxRows][trials];
+        final double[][] gpgfPathStretch = new double[maxRows][trials];
+        final double[][] argfGPathStretch = new double[maxRows][trials];
+        final double[][] argfLPathStretch = new double[maxRows][trials];
+        final double[][] arpgfPathStretch = new double[maxRows][trials];
+        final double[][] arpsrPathStretch = new double[maxRows][trials];
+        final double[] coverageRatio = new double[trials];
+
+        runTrials(trials, new TrialTask() {
+            @Override
+            public void runTrial(int i, Random rand) {
+                int iter = 0;
+                System.out.println("Trial #" + (i + 1) + " has been started!");
+                Topology t = new Topology(100, new Random(rand.nextLong()));
+                t.setWorkers(pairWorkers);
+                t.generateObstacles(numObstacles, 1, 10);
+                System.out.println("Network and obstacles were created!");
+                for (Node n : t.getNodes())
+                    n.setR(rand.nextDouble() * 4 + 1);
+                t.reInitializeNeighbors();
+                System.out.println("Neighbors were initialized!");
 
-//        conduct simulation
-            int j = 0;
-            for (int k = new Double(maxR).intValue(); k >= 1; k -= 1) {
-                for (Node s : t.getNodes())
-                    if (k > 1)
-                        s.setR(k - rand.nextDouble());
-                    else
-                        s.setR(k);
-                System.out.println("New radio range = " + k);
-
-                //remove excess neighbors for radio range = k
-                if (k != 5) {
-                    for (Node s : t.getNodes())
-                        if (s.isOn()) {
-                            Set<Node> excessNeighbors = new HashSet<>();
-                            for (Node nh : s.getNeighbors())
-                                if (EuclDist.d(s.getX(), s.getY(), nh.getX(), nh.getY()) > k)
-                                    excessNeighbors.add(nh);
-                            s.getNeighbors().removeAll(excessNeighbors);
-                        }
-                    System.out.println("Neighbors were re-initialized!");
-                }
+                int maxLengthGF = t.getNodes().size() - t.getSwitchedOffNodes().size();
+                int size = t.getGridSize();
 
-                int totalDegree = 0;
-                for (Node s : t.getNodes())
-                    if (s.isOn())
-                        totalDegree += s.getNeighbors().size();
-                avgDeg[j][i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
+    //        generate random pairs
+                List<Integer> nodeIds = new ArrayList<>(size * size);
+                for (Node n : t.getNodes())
+                    if (n.isOn())
+                        nodeIds.add(n.getId());
+                int nodesNum = nodeIds.size();
+                System.out.println("Coverage ratio:" + Double.valueOf(nodesNum) / (size * size));
+                Random r = rand;
+                List<Pair<Integer, Integer>> pairs = new ArrayList<>(size * size);
+                while (pairs.size() < pairNum) {
+                    int src = nodeIds.get(r.nextInt(nodesNum));
+                    int dst = nodeIds.get(r.nextInt(nodesNum));
 
-                //limit edges to build planarized graph (RNG)
-                for (Node s : t.getNodes())
-                    if (s.isOn()) {
-                        s.clearProhibitedNeighbors();
-                        Node u = s;
-                        for (Node v : u.getNeighbors())
-                            for (Node w : u.getNeighbors())
-                                if (w.equals(v))
-                                    continue;
-                                else if (EuclDist.d(u, v) > Math.max(EuclDist.d(u, w), EuclDist.d(v, w))) {
-                                    u.addProhibitedNeighbor(v);
-                                    break;
-                                }
+                    if (src != dst)
+                        pairs.add(new Pair<>(src, dst));
+                }
+                System.out.println("Pairs were generated. Total number of pairs=" + pairs.size());
 
+    //        conduct simulation
+                int j = 0;
+                for (int k = new Double(maxR).intValue(); k >= 1; k -= 1) {
+                    for (Node s : t.getNodes())
+                        if (k > 1)
+                            s.setR(k - rand.nextDouble());
+                        else
+                            s.setR(k);
+                    System.out.println("New radio range = " + k);
+
+                    //remove excess neighbors for radio range = k
+                    if (k != 5) {
+                        t.limitNeighborRange(k);
+                        System.out.println("Neighbors were re-initialized!");
                     }
-                System.out.println("Planarized RNG graph was created!");
-
-                t.initializeCircumscribedObstacles();
-                System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
 
-                for (Pair<Integer, Integer> pair : pairs) {
-                    List<Node> pathBFS = bfs.breadthFirstSearch(pair.getKey(), pair.getValue(), t);
-                    if (!pathBFS.isEmpty() && pathBFS.size() <= ttl + 1) {
-                        bfsPathNum[j][i] += 1;
-                        List<Node> pathGF = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, false, ttl + 1);
-                        List<Node> pathGPSR = gf.greedyForwarding(pair.getKey(), pair.getValue(), t, true, ttl + 1);
-                        List<Integer> gpgfHSize = new ArrayList<>(1);
-                        List<Node> pathGPGF = gpgf.greedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1, gpgfHSize);
-                        List<Node> pathARGFG = argfGlobal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-                        List<Node> pathARGFL = argfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-                        List<Integer> arpgfHSize = new ArrayList<>(1);
-                        List<Node> pathARPGF = arpgfLocal.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1, arpgfHSize);
-                        List<Node> pathARPSR = arpsr.potentialGreedyForwarding(pair.getKey(), pair.getValue(), t, ttl + 1);
-
-                        if (!pathGF.isEmpty() && pathGF.get(pathGF.size() - 1).getId() == pair.getValue()) {
-                            gfPathNum[j][i] += 1;
-                            gfPathStretch[j][i] += Double.valueOf(pathGF.size()) / Double.valueOf(pathBFS.size());
-                        }
+                    int totalDegree = 0;
+                    CompactTopology ct = t.getCompactTopology();
+                    for (Node s : t.getNodes())
+                        if (s.isOn())
+                            totalDegree += ct.degree(s.getId());
+                    avgDeg[j][i] = Double.valueOf(totalDegree) / Double.valueOf(maxLengthGF);
+
+                    //limit edges to build planarized graph (RNG)
+                    t.planarize(Planarization.RNG);
+                    System.out.println("Planarized RNG graph was created!");
+
+                    t.initializeCircumscribedObstacles();
+                    System.out.println("Circumscribed obstacles were created and they are:" + t.getCircumscribedObstacles());
+
+                    PairOutcome[][] outcomes = routePairs(t, pairs, deg, new int[]{ttl});
+                    for (PairOutcome[] pairOutcomes : outcomes) {
+                        PairOutcome o = pairOutcomes[0];
+                        if (o.bfs > 0) {
+                            bfsPathNum[j][i] += 1;
+
+                            if (o.gf > 0) {
+                                gfPathNum[j][i] += 1;
+                                gfPathStretch[j][i] += Double.valueOf(o.gf) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathGPSR.isEmpty() && pathGPSR.get(pathGPSR.size() - 1).getId() == pair.getValue()) {
-                            gpsrPathNum[j][i] += 1;
-                            gpsrPathStretch[j][i] += Double.valueOf(pathGPSR.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.gpsr > 0) {
+                                gpsrPathNum[j][i] += 1;
+                                gpsrPathStretch[j][i] += Double.valueOf(o.gpsr) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathGPGF.isEmpty() && pathGPGF.get(pathGPGF.size() - 1).getId() == pair.getValue()) {
-                            gpgfPathNum[j][i] += 1;
-                            gpgfPathStretch[j][i] += Double.valueOf(pathGPGF.size()) / Double.valueOf(pathBFS.size());
-                            gpgfHeaderSize[j][i] += gpgfHSize.isEmpty() ? 0 : gpgfHSize.get(0);
-                        }
+                            if (o.gpgf > 0) {
+                                gpgfPathNum[j][i] += 1;
+                                gpgfPathStretch[j][i] += Double.valueOf(o.gpgf) / Double.valueOf(o.bfs);
+                                gpgfHeaderSize[j][i] += o.gpgfHeaderSize;
+                            }
 
-                        if (!pathARGFG.isEmpty() && pathARGFG.get(pathARGFG.size() - 1).getId() == pair.getValue()) {
-                            argfGPathNum[j][i] += 1;
-                            argfGPathStretch[j][i] += Double.valueOf(pathARGFG.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.argfG > 0) {
+                                argfGPathNum[j][i] += 1;
+                                argfGPathStretch[j][i] += Double.valueOf(o.argfG) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARGFL.isEmpty() && pathARGFL.get(pathARGFL.size() - 1).getId() == pair.getValue()) {
-                            argfLPathNum[j][i] += 1;
-                            argfLPathStretch[j][i] += Double.valueOf(pathARGFL.size()) / Double.valueOf(pathBFS.size());
-                        }
+                            if (o.argfL > 0) {
+                                argfLPathNum[j][i] += 1;
+                                argfLPathStretch[j][i] += Double.valueOf(o.argfL) / Double.valueOf(o.bfs);
+                            }
 
-                        if (!pathARPGF.isEmpty() && pathARPGF.get(pathARPGF.size() - 1).getId() == pair.getValue()) {
-                            arpgfPathNum[j][i] += 1;
-                            arpgfPathStretch[j][i] += Double.valueOf(pathARPGF.size()) / Double.valueOf(pathBFS.size());
-                            arpgfHeaderSize[j][i] += arpgfHSize.isEmpty() ? 0 : arpgfHSize.get(0);
-                        }
+                            if (o.arpgfL > 0) {
+                                arpgfPathNum[j][i] += 1;
+                                arpgfPathStretch[j][i] += Double.valueOf(o.arpgfL) / Double.valueOf(o.bfs);
+                                arpgfHeaderSize[j][i] += o.arpgfHeaderSize;
+                            }
 
-                        if (!pathARPSR.isEmpty() && pathARPSR.get(pathARPSR.size() - 1).getId() == pair.getValue()) {
-                            arpsrPathNum[j][i] += 1;
-                            arpsrPathStretch[j][i] += Double.valueOf(pathARPSR.size()) / Double.valueOf(pathBFS.size());
+                            if (o.arpsr > 0) {
+                                arpsrPathNum[j][i] += 1;
+                                arpsrPathStretch[j][i] += Double.valueOf(o.arpsr) / Double.valueOf(o.bfs);
+                            }
                         }
+                        System.out.println("All algorithms were used for pair[" + ++iter + "]. BFS found:" + bfsPathNum[j][i]);
                     }
-                    System.out.println("All algorithms were used for pair[" + ++iter + "]. BFS found:" + bfsPathNum[j][i]);
-                }
 
-                gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
-                gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
-                gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
-                argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
-                argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
-                arpgfPathStretch[j][i] = arpgfPathStretch[j][i] / arpgfPathNum[j][i];
-                arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrPathNum[j][i];
-                //packet header sizes
-                gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
-                arpgfHeaderSize[j][i] = Double.valueOf(arpgfHeaderSize[j][i]) / Double.valueOf(arpgfPathNum[j][i]);
-
-                ++j;
+                    gfPathStretch[j][i] = gfPathStretch[j][i] / gfPathNum[j][i];
+                    gpsrPathStretch[j][i] = gpsrPathStretch[j][i] / gpsrPathNum[j][i];
+                    gpgfPathStretch[j][i] = gpgfPathStretch[j][i] / gpgfPathNum[j][i];
+                    argfGPathStretch[j][i] = argfGPathStretch[j][i] / argfGPathNum[j][i];
+                    argfLPathStretch[j][i] = argfLPathStretch[j][i] / argfLPathNum[j][i];
+                    arpgfPathStretch[j][i] = arpgfPathStretch[j][i] / arpgfPathNum[j][i];
+                    arpsrPathStretch[j][i] = arpsrPathStretch[j][i] / arpsrPathNum[j][i];
+                    //packet header sizes
+                    gpgfHeaderSize[j][i] = Double.valueOf(gpgfHeaderSize[j][i]) / Double.valueOf(gpgfPathNum[j][i]);
+                    arpgfHeaderSize[j][i] = Double.valueOf(arpgfHeaderSize[j][i]) / Double.valueOf(arpgfPathNum[j][i]);
+
+                    ++j;
+                }
+                coverageRatio[i] = Double.valueOf(nodesNum) / (size * size);
             }
-            coverageRatio[i] = Double.valueOf(nodesNum) / (size * size);
-        }
+        });
 
         System.out.println("Coverage ratio:" + Arrays.toString(coverageRatio));
         System.out.println("Avg. node degree:" + Arrays.deepToString(avgDeg));
@@ -825,23 +837,326 @@ public class ExperimentHelper {
 
 
     /**
-     * This method is used to retrieve local obstacles, i.e., which repulsion zones contain node n
-     * (based on Equation 18 in the AGRA paper)
+     * Simulation of a single trial. Trials are independent of each other, so a trial should only
+     * fill its own column (i.e., trial index) of the experiment result matrices
+     */
+    private interface TrialTask {
+        void runTrial(int trial, Random rand);
+    }
+
+    /**
+     * Routing of the src-dst pairs with indexes from..to-1 (exclusive). Pair ranges are routed concurrently,
+     * so a task should create its own forwarding engines and only fill the outcomes of its pairs
+     */
+    private interface PairsTask {
+        void routePairs(int from, int to);
+    }
+
+    /**
+     * Lengths (in nodes) of the paths found for a single src-dst pair, where 0 means that the packet was not delivered
+     */
+    private static class PairOutcome {
+        int bfs;
+        int gf;
+        int gpsr;
+        int gpgf;
+        int argfG;
+        int argfL;
+        int arpgfG;
+        int arpgfL;
+        int arpsr;
+        int gpgfHeaderSize;
+        int arpgfHeaderSize;
+
+        /**
+         * @param ttl - packet's TTL that is not greater than the one this outcome was routed with
+         * @return outcome of the same pair under the given TTL, i.e., only paths of at most ttl hops are delivered
+         */
+        PairOutcome withinTtl(int ttl) {
+            PairOutcome o = new PairOutcome();
+            if (bfs == 0 || bfs - 1 > ttl)
+                return o;
+
+            o.bfs = bfs;
+            o.gf = gf <= ttl + 1 ? gf : 0;
+            o.gpsr = gpsr <= ttl + 1 ? gpsr : 0;
+            o.gpgf = gpgf <= ttl + 1 ? gpgf : 0;
+            o.argfG = argfG <= ttl + 1 ? argfG : 0;
+            o.argfL = argfL <= ttl + 1 ? argfL : 0;
+            o.arpgfG = arpgfG <= ttl + 1 ? arpgfG : 0;
+            o.arpgfL = arpgfL <= ttl + 1 ? arpgfL : 0;
+            o.arpsr = arpsr <= ttl + 1 ? arpsr : 0;
+            o.gpgfHeaderSize = gpgfHeaderSize;
+            o.arpgfHeaderSize = arpgfHeaderSize;
+            return o;
+        }
+    }
+
+    /**
+     * internal method that runs all trials either serially or on a pool of trialWorkers threads.
+     * Every trial gets its own generator seeded by (seed, trial), so results do not depend on scheduling
+     *
+     * @param trials - number of trials
+     * @param task   - simulation of a single trial
+     */
+    private void runTrials(int trials, final TrialTask task) {
+        if (trialWorkers <= 1 || trials <= 1) {
+            for (int i = 0; i < trials; i++)
+                task.runTrial(i, trialRandom(i));
+            return;
+        }
+
+        List<Runnable> runnables = new ArrayList<>(trials);
+        for (int i = 0; i < trials; i++) {
+            final int trial = i;
+            runnables.add(new Runnable() {
+                @Override
+                public void run() {
+                    task.runTrial(trial, trialRandom(trial));
+                }
+            });
+        }
+        runConcurrently(runnables, trialWorkers);
+    }
+
+    /**
+     * internal method that routes src-dst pairs either serially or on a pool of pairWorkers threads.
+     * Pairs are split into contiguous ranges, so the caller can merge per-pair outcomes in the pair order afterwards
+     *
+     * @param pairsNum - number of src-dst pairs
+     * @param task     - routing of a range of pairs
+     */
+    private void runPairs(int pairsNum, final PairsTask task) {
+        if (pairWorkers <= 1 || pairsNum <= 1) {
+            task.routePairs(0, pairsNum);
+            return;
+        }
+
+        int ranges = Math.min(pairsNum, 4 * pairWorkers); //few ranges per worker to balance long and short routes
+        List<Runnable> runnables = new ArrayList<>(ranges);
+        for (int k = 0; k < ranges; k++) {
+            final int from = (int) ((long) k * pairsNum / ranges);
+            final int to = (int) ((long) (k + 1) * pairsNum / ranges);
+            runnables.add(new Runnable() {
+                @Override
+                public void run() {
+                    task.routePairs(from, to);
+                }
+            });
+        }
+        runConcurrently(runnables, pairWorkers);
+    }
+
+    private Random trialRandom(int trial) {
+        return new Random(seed ^ (trial * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * internal method that runs independent tasks on a fixed thread pool and waits for all of them
+     *
+     * @param tasks   - independent tasks
+     * @param workers - max number of threads
+     */
+    private static void runConcurrently(List<Runnable> tasks, int workers) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, tasks.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks.size());
+            for (Runnable task : tasks)
+                futures.add(pool.submit(task));
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * internal method that routes every src-dst pair by BFS and all geo-routing approaches for each TTL policy.
+     * Geo-routing approaches are only used for pairs with a BFS path within the TTL.
+     * Forwarding is deterministic and TTL only limits the path length, so every pair is routed once with the max TTL
+     * and outcomes of smaller TTLs are derived from that run (i.e., a packet is delivered iff it made it within the TTL)
+     *
+     * @param t     - topology (it must not change while pairs are routed)
+     * @param pairs - src-dst pairs
+     * @param deg   - repulsive field attenuation order degree (only for ARGF)
+     * @param ttl   - array of packet's TTL policies
+     * @return outcomes indexed by pair and TTL policy
+     */
+    private PairOutcome[][] routePairs(final Topology t, final List<Pair<Integer, Integer>> pairs, final double deg, final int[] ttl) {
+        final int[] bfsLength = bfsLengths(t, pairs);
+        int max = 0;
+        for (int j = 0; j < ttl.length; j++)
+            max = Math.max(max, ttl[j]);
+        final int maxTtl = max;
+        final PairOutcome[][] outcomes = new PairOutcome[pairs.size()][ttl.length];
+        runPairs(pairs.size(), new PairsTask() {
+            @Override
+            public void routePairs(int from, int to) {
+                int[] gfLength = greedyLengths(t, pairs, bfsLength, from, to, maxTtl + 1);
+                GF gpsr = new GF(true);
+                GPGF gpgf = new GPGF();
+                ARGF_Global argfGlobal = configure(new ARGF_Global());
+                argfGlobal.setDeg(deg);
+                ARGF_Local argfLocal = configure(new ARGF_Local());
+                argfLocal.setDeg(deg);
+                ARPGF_Local arpgfLocal = configure(new ARPGF_Local());
+                arpgfLocal.setDeg(1);
+                ARPSR arpsr = configure(new ARPSR());
+                arpsr.setDeg(deg);
+                PathResult result = new PathResult();
+                for (int p = from; p < to; p++) {
+                    int src = pairs.get(p).getKey();
+                    int dst = pairs.get(p).getValue();
+                    PairOutcome o = new PairOutcome();
+                    if (bfsLength[p] > 0 && bfsLength[p] - 1 <= maxTtl) {
+                        o.bfs = bfsLength[p];
+                        o.gf = gfLength[p - from];
+                        o.gpsr = deliveredLength(gpsr, src, dst, t, maxTtl + 1, result);
+                        o.gpgf = deliveredLength(gpgf, src, dst, t, maxTtl + 1, result);
+                        o.gpgfHeaderSize = result.getHeaderSize();
+                        o.argfG = deliveredLength(argfGlobal, src, dst, t, maxTtl + 1, result);
+                        o.argfL = deliveredLength(argfLocal, src, dst, t, maxTtl + 1, result);
+                        o.arpgfL = deliveredLength(arpgfLocal, src, dst, t, maxTtl + 1, result);
+                        o.arpgfHeaderSize = result.getHeaderSize();
+                        o.arpsr = deliveredLength(arpsr, src, dst, t, maxTtl + 1, result);
+                    }
+                    for (int j = 0; j < ttl.length; j++)
+                        outcomes[p][j] = o.withinTtl(ttl[j]);
+                }
+            }
+        });
+        return outcomes;
+    }
+
+    /**
+     * internal method that finds GF path lengths of a range of src-dst pairs (only ones routed by routePairs).
+     * Pairs are resolved grouped by their destination, so pairs with the same destination share one greedy forest
+     * and every node is walked at most once per destination instead of once per pair
+     *
+     * @param t         - topology
+     * @param pairs     - src-dst pairs
+     * @param bfsLength - BFS path lengths indexed by pair
+     * @param from      - first pair of the range
+     * @param to        - pair after the last one of the range
+     * @param ttl       - the packet's TTL
+     * @return path lengths (in nodes) indexed by pair - from, where 0 means that GF did not deliver the packet
+     */
+    private static int[] greedyLengths(Topology t, final List<Pair<Integer, Integer>> pairs, int[] bfsLength,
+                                       int from, int to, int ttl) {
+        List<Integer> routed = new ArrayList<>(to - from);
+        for (int p = from; p < to; p++)
+            if (bfsLength[p] > 0 && bfsLength[p] - 1 < ttl)
+                routed.add(p);
+        Collections.sort(routed, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer p1, Integer p2) {
+                return Integer.compare(pairs.get(p1).getValue(), pairs.get(p2).getValue());
+            }
+        });
+
+        int[] lengths = new int[to - from];
+        GreedyForest forest = new GreedyForest();
+        for (int p : routed) {
+            int src = pairs.get(p).getKey();
+            int dst = pairs.get(p).getValue();
+            if (forest.getDestination() != dst)
+                forest.setDestination(dst, t);
+            lengths[p - from] = forest.pathLength(src, ttl);
+            if (forest.facesLocalMinimum(src, ttl))
+                System.out.println("GF faced local minimum!");
+        }
+        return lengths;
+    }
+
+    /**
+     * internal method that finds BFS path lengths of all src-dst pairs. Pairs are grouped by their source and
+     * up to 64 distinct sources are searched together by a single bit-parallel BFS. Sources are batched in Z-order
+     * of their coordinates, since nearby sources reach most nodes at similar levels (i.e., share more BFS frontiers)
      *
-     * @param n          - current node
-     * @param obstacles  - Collection of the detected at the edge obstacles
-     * @param radioRange - radio range of the node
-     * @param deg        - repulsive field attenuation order degree
-     * @return set of local obstacles for node n
+     * @param t     - topology
+     * @param pairs - src-dst pairs
+     * @return path lengths (in nodes) indexed by pair, where 0 means that dst is unreachable
+     */
+    private int[] bfsLengths(final Topology t, final List<Pair<Integer, Integer>> pairs) {
+        Map<Integer, List<Integer>> pairsBySrc = new LinkedHashMap<>();
+        for (int p = 0; p < pairs.size(); p++) {
+            List<Integer> srcPairs = pairsBySrc.get(pairs.get(p).getKey());
+            if (srcPairs == null) {
+                srcPairs = new ArrayList<>(1);
+                pairsBySrc.put(pairs.get(p).getKey(), srcPairs);
+            }
+            srcPairs.add(p);
+        }
+
+        final List<List<Integer>> groups = new ArrayList<>(pairsBySrc.values());
+        Collections.sort(groups, new Comparator<List<Integer>>() {
+            @Override
+            public int compare(List<Integer> g1, List<Integer> g2) {
+                return Long.compare(zOrder(t.getNodes().get(pairs.get(g1.get(0)).getKey())),
+                        zOrder(t.getNodes().get(pairs.get(g2.get(0)).getKey())));
+            }
+        });
+        final int batchSize = MultiSourceBFS.MAX_SOURCES;
+        final int nodesNum = t.getNodes().size();
+        final int[] lengths = new int[pairs.size()];
+        final ThreadLocal<MultiSourceBFS> searches = new ThreadLocal<MultiSourceBFS>() {
+            @Override
+            protected MultiSourceBFS initialValue() {
+                return new MultiSourceBFS(); //one search and hop distance table per worker
+            }
+        };
+        runPairs((groups.size() + batchSize - 1) / batchSize, new PairsTask() {
+            @Override
+            public void routePairs(int from, int to) { //ranges of source batches rather than pairs
+                MultiSourceBFS bfs = searches.get();
+                for (int b = from; b < to; b++) {
+                    List<List<Integer>> batch = groups.subList(b * batchSize, Math.min(groups.size(), (b + 1) * batchSize));
+                    int[] sources = new int[batch.size()];
+                    for (int s = 0; s < sources.length; s++)
+                        sources[s] = pairs.get(batch.get(s).get(0)).getKey();
+
+                    short[] dist = bfs.hopDistances(sources, t);
+                    for (int s = 0; s < sources.length; s++)
+                        for (int p : batch.get(s)) {
+                            int hops = dist[s * nodesNum + pairs.get(p).getValue()];
+                            lengths[p] = hops <= 0 ? 0 : hops + 1; //no path for unreachable dst (or dst == src)
+                        }
+                }
+            }
+        });
+        return lengths;
+    }
+
+    /**
+     * @return Z-order (Morton) code of node coordinates, i.e., interleaved bits of x and y
      */
-    private static Set<Obstacle> inObstacleRepulseZone(Node n, List<Obstacle> obstacles, double radioRange, double deg) {
-        Set<Obstacle> currentObstacles = new HashSet<>();
-        for (Obstacle o : obstacles)
-            if (EuclDist.d(o.getX(), o.getY(), n.getX(), n.getY()) <= ((1 + 1 / deg) * o.getR() + radioRange))
-                currentObstacles.add(o);
-        return currentObstacles;
+    private static long zOrder(Node n) {
+        long z = 0;
+        for (int b = 0; b < 31; b++)
+            z |= ((long) ((n.getX() >> b) & 1) << (2 * b)) | ((long) ((n.getY() >> b) & 1) << (2 * b + 1));
+        return z;
     }
 
+    /**
+     * internal method that forwards a packet with the given approach
+     *
+     * @param engine - forwarding approach
+     * @param src    - source node id
+     * @param dst    - destination node id
+     * @param t      - topology
+     * @param ttl    - the packet's TTL
+     * @param result - reusable result that keeps the packet's path and header size afterwards
+     * @return path length if the packet was delivered or 0 otherwise
+     */
+    private static int deliveredLength(ForwardingEngine engine, int src, int dst, Topology t, int ttl, PathResult result) {
+        engine.forward(src, dst, t, ttl, result);
+        return result.getDeliveredLength();
+    }
 
     /**
      * internal method that is used to save data to specified file
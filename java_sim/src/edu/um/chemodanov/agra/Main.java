@@ -43,6 +43,19 @@ public class Main {
             int[] obstacles = {10, 30, 50, 100};
             int[] ttl = {16, 32, 64, 128, 256};
             ExperimentHelper helper = new ExperimentHelper();
+            helper.setTrialWorkers(Integer.getInteger("agra.workers", 1)); //-Dagra.workers=N runs N trials concurrently
+            helper.setPairWorkers(Integer.getInteger("agra.pairWorkers", 1)); //-Dagra.pairWorkers=M routes pairs of a trial on M threads
+            Long seed = Long.getLong("agra.seed"); //-Dagra.seed=S makes experiments reproducible
+            if (seed != null)
+                helper.setSeed(seed);
+            helper.setFastIntDeg(Boolean.getBoolean("agra.fastIntDeg")); //-Dagra.fastIntDeg=true skips Math.pow for all integral degrees (may change the last bits of potentials)
+            helper.setUseCache(Boolean.getBoolean("agra.cache")); //-Dagra.cache=true looks potentials up in per destination tables
+            Long cacheBudget = Long.getLong("agra.cacheBudget"); //-Dagra.cacheBudget=B limits cached tables of an engine to B bytes
+            if (cacheBudget != null)
+                helper.setCacheBudget(cacheBudget);
+            String theta = System.getProperty("agra.theta"); //-Dagra.theta=T approximates the global repulsion (e.g., 0.5)
+            if (theta != null)
+                helper.setTheta(Double.parseDouble(theta));
 
             //decide on scenario:
             switch ((int) Math.round(Double.valueOf(args[0]))) {
@@ -24,24 +24,23 @@
 
 package edu.um.chemodanov.agra.forwarding;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
 import edu.um.chemodanov.agra.model.Node;
 import edu.um.chemodanov.agra.model.Obstacle;
 import edu.um.chemodanov.agra.model.Topology;
 import edu.um.chemodanov.agra.util.EuclDist;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
-public class ARGF_Global {
-    private double deg;
-
+public class ARGF_Global extends PotentialForwarding {
     public ARGF_Global() {
-        this.deg = 2;
+        super(2);
     }
 
-    public void setDeg(double deg) {
-        this.deg = deg;
+    @Override
+    public String getName() {
+        return "ARGF Global";
     }
 
     /**
@@ -53,46 +52,93 @@ public class ARGF_Global {
      * @return Resulting path
      */
     public List<Node> potentialGreedyForwarding(int src, int dst, Topology t, int maxLength) {
+        PathResult result = new PathResult();
+        forward(src, dst, t, maxLength, result);
+        return result.toNodes(t.getNodes());
+    }
+
+    @Override
+    public void forward(int src, int dst, Topology t, int maxLength, PathResult result) {
         List<Node> nodes = t.getNodes();
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
         List<Obstacle> obstacles = t.getCircumscribedObstacles(); //get global obstacles
-        List<Node> path = new ArrayList<>();
-        path.add(nodes.get(src));
+        result.reset(src);
         Node dstN = nodes.get(dst);
         double q = 1;
+        double[] charges = chargeTable.getCharges(dstN, obstacles, q, deg); //charges induced at obstacles, indexed by obstacle id
+        boolean cached = isCached();
+        if (cached)
+            cache.select(dst, ct, obstacles, null, charges, deg, q);
+        else if (useKernel)
+            kernel.setObstacles(obstacles, null, 0, obstacles.size(), charges);
 
         //information stored on the packet
         double lastPRepulsion = Double.MAX_VALUE;
-        while (path.get(path.size() - 1).getId() != dst && path.size() < maxLength) {
-            Node n = path.get(path.size() - 1);
+        while (result.getLast() != dst && result.size() < maxLength) {
+            Node n = nodes.get(result.getLast());
             Node next = null;
-            //induce charges on global obstacles
-            induceCharge(dstN, obstacles, q);
+            PathResult.Mode mode = PathResult.Mode.REPULSION;
             //compute current dist
             double nDist = EuclDist.d(n.getX(), n.getY(), dstN.getX(), dstN.getY());
             ////compute n potential
-            double nPotential = -q / nDist;
-            for (Obstacle h : obstacles)
-                nPotential += h.getQ() / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+            double nPotential;
+            if (cached)
+                nPotential = cache.node(n.getId());
+            else if (useKernel)
+                nPotential = kernel.potential(x[n.getId()], y[n.getId()], dstN.getX(), dstN.getY(), q);
+            else {
+                nPotential = -q / nDist;
+                for (Obstacle h : obstacles)
+                    nPotential += charges[h.getId()] / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+            }
             //if last Repulsion potential is greater than for current hop and in Repulsion zone, proceed safely with Repulsion mode
             if (nPotential < lastPRepulsion && !obstacles.isEmpty()) {
                 //learn potential of current Repulsion mode
                 lastPRepulsion = nPotential;
                 //compute neighbors potential in Repulsion mode
                 double minPotential = nPotential;
-                for (Node neighbor : n.getNeighbors()) {
-                    double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
-                    for (Obstacle h : obstacles)
-                        potential += h.getQ() / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
-                    if (potential < minPotential) {
-                        next = neighbor;
-                        minPotential = potential;
+                if (cached) {
+                    //lookups in the potential table of the destination
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        double potential = cache.link(k, n.getId());
+                        if (potential < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potential;
+                        }
+                    }
+                } else if (useKernel) {
+                    //whole block of neighbors at once
+                    int from = offsets[n.getId()];
+                    int to = ends[n.getId()];
+                    double[] potentials = kernel.potentials(x, y, targets, from, to, dstN.getX(), dstN.getY(), q);
+                    for (int k = from; k < to; k++)
+                        if (potentials[k - from] < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potentials[k - from];
+                        }
+                } else
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        Node neighbor = nodes.get(targets[k]);
+                        double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
+                        for (Obstacle h : obstacles)
+                            potential += charges[h.getId()] / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
+                        if (potential < minPotential) {
+                            next = neighbor;
+                            minPotential = potential;
+                        }
                     }
-                }
             }
             if (next == null) { //Repulsion local minimum, proceed in Attraction mode (i.e., GF mode)
                 //compute neighbors potential in Attraction mode
+                mode = PathResult.Mode.ATTRACTION;
                 double minPotential = -q / nDist;
-                for (Node neighbor : n.getNeighbors()) {
+                for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                    Node neighbor = nodes.get(targets[k]);
                     double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
                     if (potential < minPotential) {
                         next = neighbor;
@@ -100,34 +146,14 @@ public class ARGF_Global {
                     }
                 }
                 if (next == null) {
-                    System.out.println("ARGF Global faced LM!!!:" + path.size() + " Path " + src + "->" + dst +
+                    System.out.println("ARGF Global faced LM!!!:" + result.size() + " Path " + src + "->" + dst +
                             " Last Proximity=" + lastPRepulsion);
-                    return path;
+                    result.setStatus(PathResult.Status.LOCAL_MINIMUM);
+                    return;
                 }
             }
-            path.add(next);
-        }
-        return path;
-    }
-
-    /**
-     * This method is used by a node to generate charges at its locally known obstacles
-     * (i.e., using Equation 16 in the AGRA paper)
-     * @param dstN - destination node (i.e., its coordinates)
-     * @param obstacles - collection of global obstacles
-     * @param initialQ - intial charge with is by default is 1
-     */
-    private void induceCharge(Node dstN, Collection<Obstacle> obstacles, double initialQ) {
-        for (Obstacle h : obstacles)
-        {
-            double b = EuclDist.d(h.getX(), h.getY(), dstN.getX(), dstN.getY());
-            double r = h.getR();
-            double newQ2 = (initialQ * Math.pow(r, deg + 1)) / (deg * Math.pow(b + r, 2)); //electric tension on border = 0
-            double qx = h.getX();
-            double qy = h.getY();
-            h.setQ(newQ2);
-            h.setQx(qx);
-            h.setQy(qy);
+            result.add(next.getId(), mode);
         }
+        result.finish(dst);
     }
 }
\ No newline at end of file
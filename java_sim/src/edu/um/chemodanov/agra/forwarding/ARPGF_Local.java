@@ -24,22 +24,26 @@
 
 package edu.um.chemodanov.agra.forwarding;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.LocalObstacles;
 import edu.um.chemodanov.agra.model.Node;
 import edu.um.chemodanov.agra.model.Obstacle;
 import edu.um.chemodanov.agra.model.Topology;
 import edu.um.chemodanov.agra.util.EuclDist;
+import edu.um.chemodanov.agra.util.VisitTable;
 
 import java.util.*;
 
-public class ARPGF_Local {
-    private double deg;
+public class ARPGF_Local extends PotentialForwarding {
+    private VisitTable visits = new VisitTable(); //reused by all packets
 
     public ARPGF_Local() {
-        this.deg = 1;
+        super(1);
     }
 
-    public void setDeg(double deg) {
-        this.deg = deg;
+    @Override
+    public String getName() {
+        return "ARPGF Local";
     }
 
     /**
@@ -66,53 +70,108 @@ public class ARPGF_Local {
      * @return Resulting path
      */
     public List<Node> potentialGreedyForwarding(int src, int dst, Topology t, int ttl, List<Integer> headerSize) {
+        PathResult result = new PathResult();
+        forward(src, dst, t, ttl, result);
+        headerSize.add(result.getHeaderSize());
+        return result.toNodes(t.getNodes());
+    }
+
+    @Override
+    public void forward(int src, int dst, Topology t, int ttl, PathResult result) {
         List<Node> nodes = t.getNodes();
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
         List<Obstacle> obstacles = t.getCircumscribedObstacles();
-        List<Node> path = new ArrayList<>();
-        path.add(nodes.get(src));
+        result.reset(src);
         Node dstN = nodes.get(dst);
         double q = 1;
+        double[] charges = chargeTable.getCharges(dstN, obstacles, q, deg); //charges induced at obstacles, indexed by obstacle id
+        LocalObstacles local = t.getLocalObstacles(deg);
+        int[] localOffsets = local.getOffsets();
+        int[] localIds = local.getIds();
+        boolean cached = isCached();
+        if (cached)
+            cache.select(dst, ct, obstacles, local, charges, deg, q);
 
         //information stored on the packet
         double lastPRepulsion = Double.MAX_VALUE;
         double lastPAttraction = Double.MAX_VALUE;
-        Map<Node, Integer> visits = new HashMap<>(); //keep previously found min hops
+        visits.clear(ct.getNodesNum()); //keep previously found min hops
         //start forwarding
-        while (path.get(path.size() - 1).getId() != dst && path.size() < ttl) {
-            Node n = path.get(path.size() - 1);
+        while (result.getLast() != dst && result.size() < ttl) {
+            Node n = nodes.get(result.getLast());
             Node next = null;
+            PathResult.Mode mode = PathResult.Mode.REPULSION;
             //check if some local obstacles are known
-            Set<Obstacle> currentObstacles = inObstacleRepulseZone(n, obstacles, n.getR());
-            //induce charges on local obstacles
-            induceCharge(dstN, currentObstacles, q);
+            int localFrom = localOffsets[n.getId()];
+            int localTo = localOffsets[n.getId() + 1];
             //compute current dist
             double nDist = EuclDist.d(n.getX(), n.getY(), dstN.getX(), dstN.getY());
             ////compute n potential
-            double nPotential = -q / nDist;
-            for (Obstacle h : currentObstacles)
-                nPotential += h.getQ() / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+            double nPotential;
+            if (cached)
+                nPotential = cache.node(n.getId());
+            else if (useKernel) {
+                kernel.setObstacles(obstacles, localIds, localFrom, localTo, charges);
+                nPotential = kernel.potential(x[n.getId()], y[n.getId()], dstN.getX(), dstN.getY(), q);
+            } else {
+                nPotential = -q / nDist;
+                for (int k = localFrom; k < localTo; k++) {
+                    Obstacle h = obstacles.get(localIds[k]);
+                    nPotential += charges[h.getId()] / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+                }
+            }
             //if last Repulsion potential is greater than for current hop and in Repulsion zone, proceed safely with Repulsion mode
-            if (nPotential < lastPRepulsion && !currentObstacles.isEmpty()) {
+            if (nPotential < lastPRepulsion && localFrom < localTo) {
                 //learn potential of current Repulsion mode
                 lastPRepulsion = nPotential;
                 //compute neighbors potential in Repulsion mode
                 double minPotential = nPotential;
-                for (Node neighbor : n.getNeighbors()) {
-                    double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
-                    for (Obstacle h : currentObstacles)
-                        potential += h.getQ() / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
-                    if (potential < minPotential) {
-                        next = neighbor;
-                        minPotential = potential;
+                if (cached) {
+                    //lookups in the potential table of the destination
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        double potential = cache.link(k, n.getId());
+                        if (potential < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potential;
+                        }
+                    }
+                } else if (useKernel) {
+                    //whole block of neighbors at once
+                    int from = offsets[n.getId()];
+                    int to = ends[n.getId()];
+                    double[] potentials = kernel.potentials(x, y, targets, from, to, dstN.getX(), dstN.getY(), q);
+                    for (int k = from; k < to; k++)
+                        if (potentials[k - from] < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potentials[k - from];
+                        }
+                } else
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        Node neighbor = nodes.get(targets[k]);
+                        double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
+                        for (int i = localFrom; i < localTo; i++) {
+                            Obstacle h = obstacles.get(localIds[i]);
+                            potential += charges[h.getId()] / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
+                        }
+                        if (potential < minPotential) {
+                            next = neighbor;
+                            minPotential = potential;
+                        }
                     }
-                }
             }
             if (next == null && -q / nDist < lastPAttraction) { //Repulsion local minimum, proceed in Attraction mode (i.e., GF mode)
                 //learn potential of current Attraction mode
+                mode = PathResult.Mode.ATTRACTION;
                 lastPAttraction = -q / nDist;
                 //compute neighbors potential in Attraction mode
                 double minPotential = -q / nDist;
-                for (Node neighbor : n.getNeighbors()) {
+                for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                    Node neighbor = nodes.get(targets[k]);
                     double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
                     if (potential < minPotential) {
                         next = neighbor;
@@ -121,87 +180,54 @@ public class ARPGF_Local {
                 }
             }
             if (next == null) { //ARPGF in both Repulsion and Attraction modes is unavailable to route packet proceed in Pressure mode
+                mode = PathResult.Mode.PRESSURE;
+                //find min visits of next hop candidates (neighbors that were not visited have 0 visits)
                 int minVisits = Integer.MAX_VALUE;
-                //find min visited next hop candidates
-                for (Node neighbor : n.getNeighbors())
-                    if (!visits.containsKey(neighbor)) {
-                        minVisits = 0;
-                        break;
-                    } else if (visits.get(neighbor) < minVisits)
-                        minVisits = visits.get(neighbor);
-                List<Node> candidates = new ArrayList<>();
-                for (Node neighbor : n.getNeighbors())
-                    if (!visits.containsKey(neighbor) || visits.get(neighbor) == minVisits)
-                        candidates.add(neighbor);
-                //compute candidates potential in Pressure mode
+                for (int k = offsets[n.getId()]; k < ends[n.getId()] && minVisits > 0; k++)
+                    minVisits = Math.min(minVisits, visits.get(targets[k]));
+                //compute potential of min visited candidates in Pressure mode
                 double min = Double.MAX_VALUE;
-                for (Node candidate : candidates) {
-                    double potential = -q / EuclDist.d(candidate.getX(), candidate.getY(), dstN.getX(), dstN.getY());
-                    for (Obstacle h : currentObstacles)
-                        potential += h.getQ() / (Math.pow(EuclDist.d(candidate.getX(), candidate.getY(), h.getX(), h.getY()), deg));
+                for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                    int candidate = targets[k];
+                    if (visits.get(candidate) != minVisits)
+                        continue;
+                    double potential;
+                    if (cached)
+                        potential = cache.link(k, n.getId());
+                    else if (useKernel)
+                        potential = kernel.potential(x[candidate], y[candidate], dstN.getX(), dstN.getY(), q);
+                    else {
+                        potential = -q / EuclDist.d(x[candidate], y[candidate], dstN.getX(), dstN.getY());
+                        for (int j = localFrom; j < localTo; j++) {
+                            Obstacle h = obstacles.get(localIds[j]);
+                            potential += charges[h.getId()] / (Math.pow(EuclDist.d(x[candidate], y[candidate], h.getX(), h.getY()), deg));
+                        }
+                    }
                     if (potential < min) {
-                        next = candidate;
+                        next = nodes.get(candidate);
                         min = potential;
                     }
                 }
                 //increment visit of next node
-                if (!visits.containsKey(next))
-                    visits.put(next, 1);
-                else
-                    visits.put(next, visits.remove(next) + 1);
+                if (next != null)
+                    visits.increment(next.getId());
             }
             if (next == null)
             {
-                System.out.println("ARPGF Local DID NOT FOUND DST!!!:" + path.size() + " Path " + src + "->" + dst +
+                System.out.println("ARPGF Local DID NOT FOUND DST!!!:" + result.size() + " Path " + src + "->" + dst +
                         " Last Repulsion Proximity=" + lastPRepulsion + "Last Attraction Proximity=" + lastPAttraction);
-                return path;
+                result.setStatus(PathResult.Status.NO_NEXT_HOP);
+                result.setHeaderSize(visits.size());
+                return;
             }
-            path.add(next);
+            result.add(next.getId(), mode);
         }
 
-        if (path.size() >= ttl)
-            System.out.println("ARPGF Local DID NOT FOUND DST!!!:" + path.size() + " Path " + src + "->" + dst +
+        result.finish(dst);
+        result.setHeaderSize(visits.size());
+        if (result.size() >= ttl)
+            System.out.println("ARPGF Local DID NOT FOUND DST!!!:" + result.size() + " Path " + src + "->" + dst +
                     " Last Repulsion Proximity=" + lastPRepulsion + "Last Attraction Proximity=" + lastPAttraction);
-
-        headerSize.add(visits.size());
-
-        return path;
-    }
-
-    /**
-     * This method is used to retrieve local obstacles, i.e., which repulsion zones contain node n
-     * (based on Equation 18 in the AGRA paper)
-     * @param n - current node
-     * @param obstacles - Collection of the detected at the edge obstacles
-     * @param radioRange - radio range of the node
-     * @return set of local obstacles for node n
-     */
-    private Set<Obstacle> inObstacleRepulseZone(Node n, Collection<Obstacle> obstacles, double radioRange) {
-        Set<Obstacle> currentObstacles = new HashSet<>();
-        for (Obstacle h : obstacles)
-            if (EuclDist.d(h.getX(), h.getY(), n.getX(), n.getY()) <= ((1 + 1 / deg) * h.getR() + radioRange))
-                currentObstacles.add(h);
-        return currentObstacles;
     }
 
-    /**
-     * This method is used by a node to generate charges at its locally known obstacles
-     * (i.e., using Equation 16 in the AGRA paper)
-     * @param dstN - destination node (i.e., its coordinates)
-     * @param obstacles - collection of local obstacles
-     * @param initialQ - intial charge with is by default is 1
-     */
-    private void induceCharge(Node dstN, Collection<Obstacle> obstacles, double initialQ) {
-        for (Obstacle h : obstacles)
-        {
-            double b = EuclDist.d(h.getX(), h.getY(), dstN.getX(), dstN.getY());
-            double r = h.getR();
-            double newQ2 = (initialQ * Math.pow(r, deg + 1)) / (deg * Math.pow(b + r, 2)); //electric tension on border = 0
-            double qx = h.getX();
-            double qy = h.getY();
-            h.setQ(newQ2);
-            h.setQx(qx);
-            h.setQy(qy);
-        }
-    }
 }
\ No newline at end of file
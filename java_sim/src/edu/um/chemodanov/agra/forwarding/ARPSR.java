@@ -24,22 +24,27 @@
 
 package edu.um.chemodanov.agra.forwarding;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.LocalObstacles;
 import edu.um.chemodanov.agra.model.Node;
 import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.model.PlanarFaces;
+import edu.um.chemodanov.agra.model.PlanarGraph;
 import edu.um.chemodanov.agra.model.Topology;
 import edu.um.chemodanov.agra.util.EuclDist;
 
 import java.util.*;
 
-public class ARPSR {
-    private double deg;
+public class ARPSR extends PotentialForwarding {
+    private LoopDetector loops = new LoopDetector(9);
 
     public ARPSR() {
-        this.deg = 2;
+        super(2);
     }
 
-    public void setDeg(double deg) {
-        this.deg = deg;
+    @Override
+    public String getName() {
+        return "ARPSR";
     }
 
     /**
@@ -52,61 +57,135 @@ public class ARPSR {
      * @return Resulting path
      */
     public List<Node> potentialGreedyForwarding(int src, int dst, Topology t, int ttl) {
+        PathResult result = new PathResult();
+        forward(src, dst, t, ttl, result);
+        return result.toNodes(t.getNodes());
+    }
+
+    @Override
+    public void forward(int src, int dst, Topology t, int ttl, PathResult result) {
         List<Node> nodes = t.getNodes();
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
         List<Obstacle> obstacles = t.getCircumscribedObstacles();
-        List<Node> path = new ArrayList<>();
-        path.add(nodes.get(src));
+        result.reset(src);
         Node dstN = nodes.get(dst);
         double q = 1;
+        double[] charges = chargeTable.getCharges(dstN, obstacles, q, deg); //charges induced at obstacles, indexed by obstacle id
+        LocalObstacles local = t.getLocalObstacles(deg);
+        int[] localOffsets = local.getOffsets();
+        int[] localIds = local.getIds();
+        boolean cached = isCached();
+        if (cached)
+            cache.select(dst, ct, obstacles, local, charges, deg, q);
 
         //information stored on the packet
         double lastPRepulsion = Double.MAX_VALUE;
         double lastPAttraction = Double.MAX_VALUE;
         Node Lp = null;
+        double[] lpLine = new double[2]; //slope and intercept of the line from Lp to the destination
         List<Double> Lf = new ArrayList<>(2);
         List<Node> e0 = new ArrayList<>(2);
+        int link = -1; //planar link of the last hop or -1 if the packet bounced back over a link that is not planar
         boolean recovery = false;
+        loops.reset();
         //start forwarding
-        while (path.get(path.size() - 1).getId() != dst && path.size() < ttl) {
-            Node n = path.get(path.size() - 1);
+        while (result.getLast() != dst && result.size() < ttl) {
+            Node n = nodes.get(result.getLast());
             Node next = null;
+            PathResult.Mode mode = PathResult.Mode.REPULSION;
+            //next hop only depends on the node, the previous one and packet fields, so a repeated state is a loop
+            loops.set(0, n.getId());
+            loops.set(1, result.size() > 1 ? result.getPrevious() : -1);
+            loops.set(2, link);
+            loops.set(3, Lp == null ? -1 : Lp.getId());
+            loops.set(4, e0.isEmpty() || e0.get(0) == null ? -1 : e0.get(0).getId());
+            loops.set(5, e0.size() < 2 || e0.get(1) == null ? -1 : e0.get(1).getId());
+            loops.set(6, recovery ? 1 : 0);
+            loops.set(7, lastPRepulsion);
+            loops.set(8, lastPAttraction);
+            if (loops.looped()) {
+                System.out.println("ARPSR Local looped!!!:" + result.size() + " Path " + src + "->" + dst +
+                        " Last Repulsion Proximity=" + lastPRepulsion + "Last Attraction Proximity=" + lastPAttraction);
+                result.setStatus(PathResult.Status.LOOPED);
+                return;
+            }
             //check if some local obstacles are known
-            Set<Obstacle> currentObstacles = inObstacleRepulseZone(n, obstacles, n.getR());
-            //induce charges on local obstacles
-            induceCharge(dstN, currentObstacles, q);
+            int localFrom = localOffsets[n.getId()];
+            int localTo = localOffsets[n.getId() + 1];
             //compute current dist
             double nDist = EuclDist.d(n.getX(), n.getY(), dstN.getX(), dstN.getY());
             ////compute n potential
-            double nPotential = -q / nDist;
-            for (Obstacle h : currentObstacles)
-                nPotential += h.getQ() / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+            double nPotential;
+            if (cached)
+                nPotential = cache.node(n.getId());
+            else if (useKernel) {
+                kernel.setObstacles(obstacles, localIds, localFrom, localTo, charges);
+                nPotential = kernel.potential(x[n.getId()], y[n.getId()], dstN.getX(), dstN.getY(), q);
+            } else {
+                nPotential = -q / nDist;
+                for (int k = localFrom; k < localTo; k++) {
+                    Obstacle h = obstacles.get(localIds[k]);
+                    nPotential += charges[h.getId()] / (Math.pow(EuclDist.d(n.getX(), n.getY(), h.getX(), h.getY()), deg));
+                }
+            }
             //if last Repulsion potential is greater than for current hop and in Repulsion zone, proceed safely with Repulsion mode
-            if (nPotential < lastPRepulsion && !currentObstacles.isEmpty() && !recovery) {
+            if (nPotential < lastPRepulsion && localFrom < localTo && !recovery) {
                 //learn potential of current Repulsion mode
                 lastPRepulsion = nPotential;
                 //compute neighbors potential in Repulsion mode
                 double minPotential = nPotential;
-                for (Node neighbor : n.getNeighbors()) {
-                    double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
-                    for (Obstacle h : currentObstacles)
-                        potential += h.getQ() / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
-                    if (potential < minPotential) {
-                        next = neighbor;
-                        minPotential = potential;
+                if (cached) {
+                    //lookups in the potential table of the destination
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        double potential = cache.link(k, n.getId());
+                        if (potential < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potential;
+                        }
+                    }
+                } else if (useKernel) {
+                    //whole block of neighbors at once
+                    int from = offsets[n.getId()];
+                    int to = ends[n.getId()];
+                    double[] potentials = kernel.potentials(x, y, targets, from, to, dstN.getX(), dstN.getY(), q);
+                    for (int k = from; k < to; k++)
+                        if (potentials[k - from] < minPotential) {
+                            next = nodes.get(targets[k]);
+                            minPotential = potentials[k - from];
+                        }
+                } else
+                    for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                        Node neighbor = nodes.get(targets[k]);
+                        double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
+                        for (int i = localFrom; i < localTo; i++) {
+                            Obstacle h = obstacles.get(localIds[i]);
+                            potential += charges[h.getId()] / (Math.pow(EuclDist.d(neighbor.getX(), neighbor.getY(), h.getX(), h.getY()), deg));
+                        }
+                        if (potential < minPotential) {
+                            next = neighbor;
+                            minPotential = potential;
+                        }
                     }
-                }
             }
             if (next == null && -q / nDist < lastPAttraction) { //Repulsion local minimum, proceed in Attraction mode (i.e., GF mode)
+                mode = PathResult.Mode.ATTRACTION;
                 recovery = false;
                 //restore default values of Planar Traverse Mode
                 Lp = null;
-                Lf = new ArrayList<>(2);
-                e0 = new ArrayList<>(2);
+                Lf.clear();
+                e0.clear();
+                link = -1;
                 //learn potential of current Attraction mode
                 lastPAttraction = -q / nDist;
                 //compute neighbors potential in Attraction mode
                 double minPotential = -q / nDist;
-                for (Node neighbor : n.getNeighbors()) {
+                for (int k = offsets[n.getId()]; k < ends[n.getId()]; k++) {
+                    Node neighbor = nodes.get(targets[k]);
                     double potential = -q / EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
                     if (potential < minPotential) {
                         next = neighbor;
@@ -115,76 +194,51 @@ public class ARPSR {
                 }
             }
             if (next == null) { //ARPSR in both Repulsion and Attraction modes is unavailable to route packet proceed in Planar Traverse mode
+                mode = PathResult.Mode.PERIMETER;
                 recovery = true;
+                PlanarGraph planar = t.getPlanarGraph();
                 if (Lp == null) {
                     //set-up initial packet fields
                     Lp = n;
+                    lpLine[0] = PlanarFaces.slope(Lp.getX(), Lp.getY(), dstN.getX(), dstN.getY());
+                    lpLine[1] = PlanarFaces.intercept(Lp.getX(), Lp.getY(), lpLine[0]);
                     Lf.clear();
                     Lf.add(Double.valueOf(n.getX()));
                     Lf.add(Double.valueOf(n.getY()));
-                    next = periInitForward2(n, dstN.getX(), dstN.getY());
+                    link = periInitForward2(n, dstN.getX(), dstN.getY(), planar);
+                    if (link >= 0)
+                        next = nodes.get(planar.getTargets()[link]);
                     //set-up first visited edge on the face
                     e0.clear();
                     e0.add(n);
                     e0.add(next);
                 } else {
-                    next = rightHandForward2(n, path.get(path.size() - 2));
+                    Node prev = nodes.get(result.getPrevious());
+                    link = rightHandForward2(n, prev, link, planar);
+                    next = link < 0 ? prev : nodes.get(planar.getTargets()[link]);
                     if (!e0.isEmpty() && n.equals(e0.get(0)) && next.equals(e0.get(1))) {
                         System.out.println("ARPSR Local: Esrc=" + e0.get(0).getId() + " Edst=" + e0.get(1).getId() + " n=" + n.getId() + "n=" + next.getId());
-                        return path;
+                        result.setStatus(PathResult.Status.LOOPED);
+                        return;
                     } else {
-                        next = faceChange(n, next, Lp, dstN, Lf, e0);
+                        link = faceChange(n, next, link, Lp, dstN, lpLine, Lf, e0, planar, nodes);
+                        if (link >= 0)
+                            next = nodes.get(planar.getTargets()[link]);
                     }
                 }
                 if (next == null) {
                     System.out.println("ARPSR Local: Perimeter Forwarding didn't found next hop!");
-                    return path;
+                    result.setStatus(PathResult.Status.NO_NEXT_HOP);
+                    return;
                 }
             }
-            path.add(next);
+            result.add(next.getId(), mode);
         }
 
-        if (path.size() >= ttl)
-            System.out.println("ARPSR Local DID NOT FOUND DST!!!:" + path.size() + " Path " + src + "->" + dst +
+        result.finish(dst);
+        if (result.size() >= ttl)
+            System.out.println("ARPSR Local DID NOT FOUND DST!!!:" + result.size() + " Path " + src + "->" + dst +
                     " Last Repulsion Proximity=" + lastPRepulsion + "Last Attraction Proximity=" + lastPAttraction);
-        return path;
-    }
-
-    /**
-     * This method is used to retrieve local obstacles, i.e., which repulsion zones contain node n
-     * (based on Equation 18 in the AGRA paper)
-     * @param n - current node
-     * @param obstacles - Collection of the detected at the edge obstacles
-     * @param radioRange - radio range of the node
-     * @return set of local obstacles for node n
-     */
-    private Set<Obstacle> inObstacleRepulseZone(Node n, Collection<Obstacle> obstacles, double radioRange) {
-        Set<Obstacle> currentObstacles = new HashSet<>();
-        for (Obstacle h : obstacles)
-            if (EuclDist.d(h.getX(), h.getY(), n.getX(), n.getY()) <= ((1 + 1 / deg) * h.getR() + radioRange))
-                currentObstacles.add(h);
-        return currentObstacles;
-    }
-
-    /**
-     * This method is used by a node to generate charges at its locally known obstacles
-     * (i.e., using Equation 16 in the AGRA paper)
-     * @param dstN - destination node (i.e., its coordinates)
-     * @param obstacles - collection of local obstacles
-     * @param initialQ - intial charge with is by default is 1
-     */
-    private void induceCharge(Node dstN, Collection<Obstacle> obstacles, double initialQ) {
-        for (Obstacle h : obstacles)
-        {
-            double b = EuclDist.d(h.getX(), h.getY(), dstN.getX(), dstN.getY());
-            double r = h.getR();
-            double newQ2 = (initialQ * Math.pow(r, deg + 1)) / (deg * Math.pow(b + r, 2)); //electric tension on border = 0
-            double qx = h.getX();
-            double qy = h.getY();
-            h.setQ(newQ2);
-            h.setQx(qx);
-            h.setQy(qy);
-        }
     }
 
     /**
@@ -192,88 +246,65 @@ public class ARPSR {
      * @param n
      * @param dstX
      * @param dstY
-     * @return
+     * @param planar
+     * @return planar link to the next hop or -1 if n has no planar neighbors
      */
-    private Node periInitForward2(Node n, double dstX, double dstY) {
-        double sDist = EuclDist.d(n.getX(), n.getY(), dstX, dstY);
-
-        Node minne = null;
-        double min = Double.MAX_VALUE;
-
-        for (Node ne : n.getNeighbors())
-            if (!n.isProhibited(ne)) {
-                double neDist = EuclDist.d(n, ne);
-                double angle = Math.acos(((dstX - n.getX()) * (ne.getX() - n.getX())
-                        + (dstY - n.getY()) * (ne.getY() - n.getY())) / (sDist * neDist)); // cos(q)= a*b/|a||b|
-                if (!isNeighborOnLeftSide(ne, n, dstX, dstY))
-                    angle = 2 * Math.PI - angle;
-
-                if (angle < min) //at least one sensor will be found
-                {
-                    minne = ne;
-                    min = angle;
-                }
-            }
-        return minne;
+    private int periInitForward2(Node n, double dstX, double dstY, PlanarGraph planar) {
+        return planar.counterclockwiseLink(n.getId(), dstX - n.getX(), dstY - n.getY(), -1);
     }
 
     /**
      * internal method for GPSR perimeter mode
      * @param n
      * @param inne
-     * @return
+     * @param link - planar link from inne to n or -1 if it is not planar
+     * @param planar
+     * @return planar link to the next hop or -1 if the packet bounces back to inne over a link that is not planar
      */
-    private Node rightHandForward2(Node n, Node inne) {
-        double sDist = EuclDist.d(n, inne);
-
-        Node minne = null;
-        double min = Double.MAX_VALUE;
-
-        for (Node ne : n.getNeighbors())
-            if (!ne.equals(inne) && !n.isProhibited(ne)) {
-                double neDist = EuclDist.d(n, ne);
-                double angle = Math.acos(((inne.getX() - n.getX()) * (ne.getX() - n.getX())
-                        + (inne.getY() - n.getY()) * (ne.getY() - n.getY())) / (sDist * neDist)); // cos(q)= a*b/|a||b|
-                if (!isNeighborOnLeftSide(ne, n, inne))
-                    angle = 2 * Math.PI - angle;
-
-                if (angle < min) //at least one sensor will be found
-                {
-                    minne = ne;
-                    min = angle;
-                }
-            }
-
-        if (minne == null)
-            return inne;
-        else
-            return minne;
+    private int rightHandForward2(Node n, Node inne, int link, PlanarGraph planar) {
+        return link >= 0 ? planar.getFaces().getFaceNext(link) : planar.rightHandLink(n.getId(), inne.getId());
     }
 
     /**
      * internal method for GPSR perimeter mode
      * @param n
      * @param next
+     * @param link - planar link from n to next or -1 if it is not planar
      * @param Lp
      * @param dstS
+     * @param lpLine - slope and intercept of the line from Lp to dstS
      * @param Lf
      * @param e0
-     * @return
+     * @param planar
+     * @param nodes
+     * @return planar link to the next hop or -1 if next is unchanged and the link to it is not planar
      */
-    private Node faceChange(Node n, Node next, Node Lp, Node dstS, List<Double> Lf, List<Node> e0) {
-        List<Double> intersection = lineCrossed(Lp, dstS, n, next);
+    private int faceChange(Node n, Node next, int link, Node Lp, Node dstS, double[] lpLine, List<Double> Lf, List<Node> e0,
+                           PlanarGraph planar, List<Node> nodes) {
+        PlanarFaces faces = planar.getFaces();
+        double slope = link >= 0 ? faces.getSlope(link) : PlanarFaces.slope(n.getX(), n.getY(), next.getX(), next.getY());
+        double intercept = link >= 0 ? faces.getIntercept(link) : PlanarFaces.intercept(n.getX(), n.getY(), slope);
+        List<Double> intersection = lineCrossed(Lp, dstS, n, next, lpLine, slope, intercept);
         if (!intersection.isEmpty() &&
                 EuclDist.d(intersection.get(0), intersection.get(1), dstS.getX(), dstS.getY())
                         < EuclDist.d(Lf.get(0), Lf.get(1), dstS.getX(), dstS.getY())) {
             Lf = intersection;
-            next = rightHandForward2(n, next);
-            next = faceChange(n, next, Lp, dstS, Lf, e0);
+            //rotate counterclockwise around n, i.e., right-hand rule from next
+            int rotated = link >= 0 ? faces.getCcwNext(link)
+                    : planar.counterclockwiseLink(n.getId(), next.getX() - n.getX(), next.getY() - n.getY(), next.getId());
+            if (rotated >= 0) {
+                link = rotated;
+                next = nodes.get(planar.getTargets()[link]);
+            }
+            link = faceChange(n, next, link, Lp, dstS, lpLine, Lf, e0, planar, nodes);
+            if (link >= 0)
+                next = nodes.get(planar.getTargets()[link]);
             e0.clear();
             e0.add(n);
             e0.add(next);
         }
 
-        return next;
+        return link;
     }
 
     /**
@@ -282,13 +313,14 @@ public class ARPSR {
      * @param dstS
      * @param s
      * @param next
+     * @param lpLine - slope and intercept of the line from Lp to dstS
+     * @param slope - slope of the line through s and next
+     * @param intercept - intercept of the line through s and next
      * @return
      */
-    private List<Double> lineCrossed(Node Lp, Node dstS, Node s, Node next) {
-        double[] dy = new double[2];
-        double[] dx = new double[2];
-        double[] m = new double[2];
-        double[] b = new double[2];
+    private List<Double> lineCrossed(Node Lp, Node dstS, Node s, Node next, double[] lpLine, double slope, double intercept) {
+        double[] m = {lpLine[0], slope};
+        double[] b = {lpLine[1], intercept};
         double xint, yint;
         List<Double> intersection = new ArrayList<>(2);
 
@@ -301,14 +333,6 @@ public class ARPSR {
         double x4 = next.getX();
         double y4 = next.getY();
 
-        dy[0] = y2 - y1;
-        dx[0] = x2 - x1;
-        dy[1] = y4 - y3;
-        dx[1] = x4 - x3;
-        m[0] = dy[0] / dx[0];
-        m[1] = dy[1] / dx[1];
-        b[0] = y1 - m[0] * x1;
-        b[1] = y3 - m[1] * x3;
         if (m[0] != m[1]) {
             // slopes not equal, compute intercept
             xint = (b[0] - b[1]) / (m[1] - m[0]);
@@ -325,31 +349,4 @@ public class ARPSR {
         return intersection;
     }
 
-    /**
-     * internal method for GPSR perimeter mode
-     * @param ne
-     * @param s
-     * @param inne
-     * @return
-     */
-    private boolean isNeighborOnLeftSide(Node ne, Node s, Node inne) {
-        return isNeighborOnLeftSide(ne, s, inne.getX(), inne.getY());
-    }
-
-    /**
-     * internal method for GPSR perimeter mode
-     * @param ne
-     * @param s
-     * @param dstX
-     * @param dstY
-     * @return
-     */
-    private boolean isNeighborOnLeftSide(Node ne, Node s, double dstX, double dstY) //move counterclock-wise
-    {
-        if (((dstX - s.getX()) * (ne.getY() - s.getY())
-                - (dstY - s.getY()) * (ne.getX() - s.getX())) >= 0)
-            return true;
-        else
-            return false;
-    }
 }
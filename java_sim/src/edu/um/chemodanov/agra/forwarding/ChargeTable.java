@@ -0,0 +1,89 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cache of charges that packets to a destination induce at obstacles (using Equation 16 in the AGRA paper).
+ * A charge only depends on the obstacle, the destination and deg, so it is computed once per destination and shared
+ * by all hops and all pairs routed to that destination. Tables are indexed by obstacle id and must not be modified.
+ * A table belongs to the current deg, initial charge and list of obstacles iff its stamp equals the current epoch, so
+ * changing any of them drops all tables in O(1) time. Hence, callers that sweep several degrees should route all
+ * their pairs with one degree before moving to the next. This class is not thread-safe
+ */
+public class ChargeTable {
+    private List<Obstacle> obstacles; // obstacles the cached tables were computed for
+    private double initialQ;
+    private double deg;
+    private double[][] tables = new double[0][]; // by destination id
+    private int[] stamps = new int[0]; // epoch a table was computed in
+    private int epoch = 0;
+
+    /**
+     * @param dstN - destination node (i.e., its coordinates)
+     * @param obstacles - obstacles indexed by id, e.g., circumscribed obstacles of the topology
+     * @param initialQ - intial charge with is by default is 1
+     * @param deg - degree of the potential
+     * @return charges induced at the obstacles indexed by obstacle id
+     */
+    public double[] getCharges(Node dstN, List<Obstacle> obstacles, double initialQ, double deg) {
+        if (obstacles != this.obstacles || initialQ != this.initialQ || deg != this.deg) {
+            this.obstacles = obstacles;
+            this.initialQ = initialQ;
+            this.deg = deg;
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                epoch = 0;
+            }
+            epoch++;
+        }
+
+        int dst = dstN.getId();
+        if (dst >= tables.length) {
+            int capacity = Math.max(dst + 1, 2 * tables.length);
+            tables = Arrays.copyOf(tables, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+        }
+        double[] charges = tables[dst];
+        if (stamps[dst] != epoch) {
+            //a new array rather than the old one, since callers may still hold it
+            charges = new double[obstacles.size()];
+            for (Obstacle h : obstacles) {
+                double b = EuclDist.d(h.getX(), h.getY(), dstN.getX(), dstN.getY());
+                double r = h.getR();
+                charges[h.getId()] = (initialQ * Math.pow(r, deg + 1)) / (deg * Math.pow(b + r, 2)); //electric tension on border = 0
+            }
+            tables[dst] = charges;
+            stamps[dst] = epoch;
+        }
+        return charges;
+    }
+}
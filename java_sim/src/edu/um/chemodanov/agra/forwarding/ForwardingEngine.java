@@ -0,0 +1,51 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.Topology;
+
+/**
+ * Common interface of the geographic forwarding approaches, so experiments can run them generically.
+ * An engine writes the outcome of a packet into a result object provided by the caller, i.e., a single result
+ * can be reused by many packets. Engines keep per-packet buffers, hence an engine must not be shared by concurrent
+ * threads (use one instance per thread instead)
+ */
+public interface ForwardingEngine
+{
+    /**
+     * @return name of the approach, e.g., GPSR
+     */
+    String getName();
+
+    /**
+     * Forward packet from the source to the destination
+     * @param src - source node id
+     * @param dst - destination node id
+     * @param t - topology
+     * @param ttl - the packet's TTL (max number of nodes on the path)
+     * @param result - result to overwrite with the packet's path and status
+     */
+    void forward(int src, int dst, Topology t, int ttl, PathResult result);
+}
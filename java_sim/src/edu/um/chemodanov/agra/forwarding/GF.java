@@ -24,15 +24,46 @@
 
 package edu.um.chemodanov.agra.forwarding;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
 import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.PlanarFaces;
+import edu.um.chemodanov.agra.model.PlanarGraph;
 import edu.um.chemodanov.agra.model.Topology;
 import edu.um.chemodanov.agra.util.EuclDist;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class GF
+public class GF implements ForwardingEngine
 {
+    private boolean rightHandRule;
+    private LoopDetector loops = new LoopDetector(5);
+
+    public GF()
+    {
+        this(false);
+    }
+
+    /**
+     * @param rightHandRule - if true than use perimeter mode for local minimum recovery (i.e., use GPSR)
+     */
+    public GF(boolean rightHandRule)
+    {
+        this.rightHandRule = rightHandRule;
+    }
+
+    @Override
+    public String getName()
+    {
+        return rightHandRule ? "GPSR" : "GF";
+    }
+
+    @Override
+    public void forward(int src, int dst, Topology t, int ttl, PathResult result)
+    {
+        forward(src, dst, t, rightHandRule, ttl, result);
+    }
+
     /**
      * Forward packet from the source to the destination using ordinar Greedy Forwarding based on the local obstacles knowledge
      *
@@ -45,75 +76,108 @@ public class GF
      */
     public List<Node> greedyForwarding(int src, int dst, Topology t, boolean rightHandRule, int ttl)
     {
-        List<Node> nodes = t.getNodes();
-        List<Node> path = new ArrayList<>();
-        path.add(nodes.get(src));
-        Node dstS = nodes.get(dst);
+        PathResult result = new PathResult();
+        forward(src, dst, t, rightHandRule, ttl, result);
+        return result.toNodes(t.getNodes());
+    }
 
-        while (path.get(path.size() - 1).getId() != dst && path.size() < ttl)
+    /**
+     * internal method that forwards packet using ordinar Greedy Forwarding (and GPSR perimeter mode if rightHandRule is set)
+     *
+     * @param src - source node
+     * @param dst - destination node
+     * @param t - topology
+     * @param rightHandRule - if true than use perimeter mode for local minimum recovery (i.e., use GPSR)
+     * @param ttl - the packet's TTL
+     * @param result - resulting path and status
+     */
+    private void forward(int src, int dst, Topology t, boolean rightHandRule, int ttl, PathResult result)
+    {
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
+        result.reset(src);
+
+        while (result.getLast() != dst && result.size() < ttl)
         {
-            Node n = path.get(path.size() - 1);
-            Node next = null;
-            double min = EuclDist.d(n.getX(), n.getY(), dstS.getX(), dstS.getY());
+            int n = result.getLast();
+            int next = -1;
+            double min = EuclDist.d(x[n], y[n], x[dst], y[dst]);
 
-            for (Node neighbor : n.getNeighbors())
-                if (EuclDist.d(neighbor.getX(), neighbor.getY(), dstS.getX(), dstS.getY()) < min)
+            //scan the compact (CSR) links, i.e., without iterator allocation
+            for (int k = offsets[n]; k < ends[n]; k++)
+            {
+                int neighbor = targets[k];
+                double d = EuclDist.d(x[neighbor], y[neighbor], x[dst], y[dst]);
+                if (d < min)
                 {
                     next = neighbor;
-                    min = EuclDist.d(neighbor.getX(), neighbor.getY(), dstS.getX(), dstS.getY());
+                    min = d;
                 }
+            }
 
-            if (next == null) //indicates local minimum
+            if (next < 0) //indicates local minimum
                 if (rightHandRule)
                     try
                     {
-                        perimeterModeForwarding(path, dstS, ttl);
+                        perimeterModeForwarding(result, t.getNodes().get(dst), ttl, t.getPlanarGraph(), t.getNodes());
                     } catch (PerimeterForwardingException e) //indicates absence of neighbors for n (disconnected node)
                     {
                         System.out.println(e.toString());
-                        return path;
+                        return;
                     }
                 else
                 {
                     System.out.println("GF faced local minimum!");
-                    return path;
+                    result.setStatus(PathResult.Status.LOCAL_MINIMUM);
+                    return;
                 }
             else
-                path.add(next);
+                result.add(next, PathResult.Mode.GREEDY);
         }
 
-        if (path.get(path.size() - 1).getId() == dst)
-            return path;
-        else
-            return path;
+        result.finish(dst);
     }
 
     /**
      * This method forwards packet in a Perimeter mode of GPSR (when possible returns back to Greedy Forwarding mode)
-     * @param path - path traversed by a packet so far
+     * @param result - path traversed by a packet so far
      * @param dstN - destination node
      * @param ttl - packet's TTL
+     * @param planar - planar graph to traverse faces
+     * @param nodes - topology nodes
      * @throws PerimeterForwardingException
      */
-    private void perimeterModeForwarding(List<Node> path, Node dstN, int ttl) throws PerimeterForwardingException
+    private void perimeterModeForwarding(PathResult result, Node dstN, int ttl, PlanarGraph planar, List<Node> nodes) throws PerimeterForwardingException
     {
+        int[] targets = planar.getTargets();
         Node Lp = null;
+        double[] lpLine = new double[2]; //slope and intercept of the line from Lp to the destination
         List<Double> Lf = new ArrayList<>(2);
         List<Node> e0 = new ArrayList<>(2);
+        int link = -1; //planar link of the last hop or -1 if the packet bounced back over a link that is not planar
+        loops.reset();
 
-        while (path.get(path.size() - 1).getId() != dstN.getId() && path.size() < ttl)
+        while (result.getLast() != dstN.getId() && result.size() < ttl)
         {
-            Node n = path.get(path.size() - 1);
+            Node n = nodes.get(result.getLast());
             Node next = null;
             if (Lp == null)
             {
                 //set-up initial packet fields
                 Lp = n;
+                lpLine[0] = PlanarFaces.slope(Lp.getX(), Lp.getY(), dstN.getX(), dstN.getY());
+                lpLine[1] = PlanarFaces.intercept(Lp.getX(), Lp.getY(), lpLine[0]);
                 Lf.clear();
                 Lf.add(Double.valueOf(n.getX()));
                 Lf.add(Double.valueOf(n.getY()));
 
-                next = periInitForward2(n, dstN.getX(), dstN.getY());
+                link = periInitForward2(n, dstN.getX(), dstN.getY(), planar);
+                if (link >= 0)
+                    next = nodes.get(targets[link]);
 
                 //set-up first visited edge on the face
                 e0.clear();
@@ -121,23 +185,42 @@ public class GF
                 e0.add(next);
             } else
             {
-                next = rightHandForward2(n, path.get(path.size() - 2));
+                Node prev = nodes.get(result.getPrevious());
+                //Lp (and the line to the destination) is fixed within a perimeter run, so the rest defines the next hop
+                loops.set(0, n.getId());
+                loops.set(1, prev.getId());
+                loops.set(2, link);
+                loops.set(3, e0.get(0).getId());
+                loops.set(4, e0.get(1).getId());
+                if (loops.looped())
+                {
+                    result.setStatus(PathResult.Status.LOOPED);
+                    throw new PerimeterForwardingException("Perimeter Forwarding looped at node " + n.getId() + ". Terminate!");
+                }
+                link = rightHandForward2(n, prev, link, planar);
+                next = link < 0 ? prev : nodes.get(targets[link]);
 
                 if (!e0.isEmpty() && n.equals(e0.get(0)) && next.equals(e0.get(1)))
                 {
                     System.out.println("Exception 1: src=" + e0.get(0).getId() + " dst=" + e0.get(1).getId() + " n=" + n.getId() + "n=" + next.getId());
+                    result.setStatus(PathResult.Status.LOOPED);
                     throw new PerimeterForwardingException("Perimeter Forwarding went through the same edge in the same direction. Terminate!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
                 } else
                 {
 
-                    next = faceChange(n, next, Lp, dstN, Lf, e0);
+                    link = faceChange(n, next, link, Lp, dstN, lpLine, Lf, e0, planar, nodes);
+                    if (link >= 0)
+                        next = nodes.get(targets[link]);
                 }
             }
 
             if (next == null)
+            {
+                result.setStatus(PathResult.Status.NO_NEXT_HOP);
                 throw new PerimeterForwardingException("Perimeter Forwarding didn't found next hop!");
+            }
 
-            path.add(next);
+            result.add(next.getId(), PathResult.Mode.PERIMETER);
 
             if (EuclDist.d(next, dstN) < EuclDist.d(Lp, dstN)) //return to GF
                 return;
@@ -149,94 +232,70 @@ public class GF
      * @param n
      * @param dstX
      * @param dstY
-     * @return
+     * @param planar
+     * @return planar link to the next hop or -1 if n has no planar neighbors
      */
-    private Node periInitForward2(Node n, double dstX, double dstY)
+    private int periInitForward2(Node n, double dstX, double dstY, PlanarGraph planar)
     {
-        double nDist = EuclDist.d(n.getX(), n.getY(), dstX, dstY);
-
-        Node minne = null;
-        double min = Double.MAX_VALUE;
-
-        for (Node ne : n.getNeighbors())
-            if (!n.isProhibited(ne))
-            {
-                double neDist = EuclDist.d(n, ne);
-                double angle = Math.acos(((dstX - n.getX()) * (ne.getX() - n.getX())
-                        + (dstY - n.getY()) * (ne.getY() - n.getY())) / (nDist * neDist)); // cos(q)= a*b/|a||b|
-                if (!isNeighborOnLeftSide(ne, n, dstX, dstY))
-                    angle = 2 * Math.PI - angle;
-
-                if (angle < min) //at least one sensor will be found
-                {
-                    minne = ne;
-                    min = angle;
-                }
-            }
-        return minne;
+        return planar.counterclockwiseLink(n.getId(), dstX - n.getX(), dstY - n.getY(), -1);
     }
 
     /**
      * internal method for GPSR perimeter mode
      * @param n
      * @param inne
-     * @return
+     * @param link - planar link from inne to n or -1 if it is not planar
+     * @param planar
+     * @return planar link to the next hop or -1 if the packet bounces back to inne over a link that is not planar
      */
-    private Node rightHandForward2(Node n, Node inne)
+    private int rightHandForward2(Node n, Node inne, int link, PlanarGraph planar)
     {
-        double nDist = EuclDist.d(n, inne);
-
-        Node minne = null;
-        double min = Double.MAX_VALUE;
-
-        for (Node ne : n.getNeighbors())
-            if (!ne.equals(inne) && !n.isProhibited(ne))
-            {
-                double neDist = EuclDist.d(n, ne);
-                double angle = Math.acos(((inne.getX() - n.getX()) * (ne.getX() - n.getX())
-                        + (inne.getY() - n.getY()) * (ne.getY() - n.getY())) / (nDist * neDist)); // cos(q)= a*b/|a||b|
-                if (!isNeighborOnLeftSide(ne, n, inne))
-                    angle = 2 * Math.PI - angle;
-
-                if (angle < min) //at least one sensor will be found
-                {
-                    minne = ne;
-                    min = angle;
-                }
-            }
-
-        if (minne == null)
-            return inne;
-        else
-            return minne;
+        return link >= 0 ? planar.getFaces().getFaceNext(link) : planar.rightHandLink(n.getId(), inne.getId());
     }
 
     /**
      * internal method for GPSR perimeter mode
      * @param n
      * @param next
+     * @param link - planar link from n to next or -1 if it is not planar
      * @param Lp
      * @param dstS
+     * @param lpLine - slope and intercept of the line from Lp to dstS
      * @param Lf
      * @param e0
-     * @return
+     * @param planar
+     * @param nodes
+     * @return planar link to the next hop or -1 if next is unchanged and the link to it is not planar
      */
-    private Node faceChange(Node n, Node next, Node Lp, Node dstS, List<Double> Lf, List<Node> e0)
+    private int faceChange(Node n, Node next, int link, Node Lp, Node dstS, double[] lpLine, List<Double> Lf, List<Node> e0,
+                           PlanarGraph planar, List<Node> nodes)
     {
-        List<Double> intersection = lineCrossed(Lp, dstS, n, next);
+        PlanarFaces faces = planar.getFaces();
+        double slope = link >= 0 ? faces.getSlope(link) : PlanarFaces.slope(n.getX(), n.getY(), next.getX(), next.getY());
+        double intercept = link >= 0 ? faces.getIntercept(link) : PlanarFaces.intercept(n.getX(), n.getY(), slope);
+        List<Double> intersection = lineCrossed(Lp, dstS, n, next, lpLine, slope, intercept);
         if (!intersection.isEmpty() &&
                 EuclDist.d(intersection.get(0), intersection.get(1), dstS.getX(), dstS.getY())
                         < EuclDist.d(Lf.get(0), Lf.get(1), dstS.getX(), dstS.getY()))
         {
             Lf = intersection;
-            next = rightHandForward2(n, next);
-            next = faceChange(n, next, Lp, dstS, Lf, e0);
+            //rotate counterclockwise around n, i.e., right-hand rule from next
+            int rotated = link >= 0 ? faces.getCcwNext(link)
+                    : planar.counterclockwiseLink(n.getId(), next.getX() - n.getX(), next.getY() - n.getY(), next.getId());
+            if (rotated >= 0)
+            {
+                link = rotated;
+                next = nodes.get(planar.getTargets()[link]);
+            }
+            link = faceChange(n, next, link, Lp, dstS, lpLine, Lf, e0, planar, nodes);
+            if (link >= 0)
+                next = nodes.get(planar.getTargets()[link]);
             e0.clear();
             e0.add(n);
             e0.add(next);
         }
 
-        return next;
+        return link;
     }
 
     /**
@@ -245,14 +304,15 @@ public class GF
      * @param dstS
      * @param s
      * @param next
+     * @param lpLine - slope and intercept of the line from Lp to dstS
+     * @param slope - slope of the line through s and next
+     * @param intercept - intercept of the line through s and next
      * @return
      */
-    private List<Double> lineCrossed(Node Lp, Node dstS, Node s, Node next)
+    private List<Double> lineCrossed(Node Lp, Node dstS, Node s, Node next, double[] lpLine, double slope, double intercept)
     {
-        double[] dy = new double[2];
-        double[] dx = new double[2];
-        double[] m = new double[2];
-        double[] b = new double[2];
+        double[] m = {lpLine[0], slope};
+        double[] b = {lpLine[1], intercept};
         double xint, yint;
         List<Double> intersection = new ArrayList<>(2);
 
@@ -265,14 +325,6 @@ public class GF
         double x4 = next.getX();
         double y4 = next.getY();
 
-        dy[0] = y2 - y1;
-        dx[0] = x2 - x1;
-        dy[1] = y4 - y3;
-        dx[1] = x4 - x3;
-        m[0] = dy[0] / dx[0];
-        m[1] = dy[1] / dx[1];
-        b[0] = y1 - m[0] * x1;
-        b[1] = y3 - m[1] * x3;
         if (m[0] != m[1])
         {
             // slopes not equal, compute intercept
@@ -291,35 +343,6 @@ public class GF
         return intersection;
     }
 
-    /**
-     * internal method for GPSR perimeter mode
-     * @param ne
-     * @param s
-     * @param inne
-     * @return
-     */
-    private boolean isNeighborOnLeftSide(Node ne, Node s, Node inne)
-    {
-        return isNeighborOnLeftSide(ne, s, inne.getX(), inne.getY());
-    }
-
-    /**
-     * internal method for GPSR perimeter mode
-     * @param ne
-     * @param s
-     * @param dstX
-     * @param dstY
-     * @return
-     */
-    private boolean isNeighborOnLeftSide(Node ne, Node s, double dstX, double dstY) //move counterclock-wise
-    {
-        if (((dstX - s.getX()) * (ne.getY() - s.getY())
-                - (dstY - s.getY()) * (ne.getX() - s.getX())) >= 0)
-            return true;
-        else
-            return false;
-    }
-
     /* code from the GPSR Thesis Work
         private Node periInitForward(Node s, double dstX, double dstY)
     {
@@ -24,13 +24,22 @@
 
 package edu.um.chemodanov.agra.forwarding;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
 import edu.um.chemodanov.agra.model.Node;
 import edu.um.chemodanov.agra.model.Topology;
 import edu.um.chemodanov.agra.util.EuclDist;
+import edu.um.chemodanov.agra.util.VisitTable;
 
 import java.util.*;
 
-public class GPGF {
+public class GPGF implements ForwardingEngine {
+    private VisitTable visits = new VisitTable(); //reused by all packets
+
+    @Override
+    public String getName() {
+        return "GPGF";
+    }
+
     /**
      * Forward packet from the source to the destination using GPGF
      *
@@ -55,92 +64,103 @@ public class GPGF {
      * @return Resulting path
      */
     public List<Node> greedyForwarding(int src, int dst, Topology t, int ttl, List<Integer> headerSize) {
-        List<Node> nodes = t.getNodes();
-        List<Node> path = new ArrayList<>();
-        Map<Node, Integer> visits = new HashMap<>();
-        path.add(nodes.get(src));
-        Node dstN = nodes.get(dst);
-
-        while (path.get(path.size() - 1).getId() != dst && path.size() < ttl) {
-            Node n = path.get(path.size() - 1);
-            Node next = null;
-            double min = EuclDist.d(n.getX(), n.getY(), dstN.getX(), dstN.getY());
-
-            for (Node neighbor : n.getNeighbors())
-                if (EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY()) < min) {
+        PathResult result = new PathResult();
+        forward(src, dst, t, ttl, result);
+        headerSize.add(result.getHeaderSize());
+        return result.toNodes(t.getNodes());
+    }
+
+    @Override
+    public void forward(int src, int dst, Topology t, int ttl, PathResult result) {
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
+        visits.clear(ct.getNodesNum());
+        result.reset(src);
+
+        while (result.getLast() != dst && result.size() < ttl) {
+            int n = result.getLast();
+            int next = -1;
+            double min = EuclDist.d(x[n], y[n], x[dst], y[dst]);
+
+            //scan the compact (CSR) links, i.e., without iterator allocation
+            for (int k = offsets[n]; k < ends[n]; k++) {
+                int neighbor = targets[k];
+                double d = EuclDist.d(x[neighbor], y[neighbor], x[dst], y[dst]);
+                if (d < min) {
                     next = neighbor;
-                    min = EuclDist.d(neighbor.getX(), neighbor.getY(), dstN.getX(), dstN.getY());
+                    min = d;
                 }
+            }
 
-            if (next == null) //indicates local minimum
+            if (next < 0) //indicates local minimum
                 try {
-                    if (visits.containsKey(n))
-                        visits.put(n, visits.get(n) + 1);
-                    else
-                        visits.put(n, 1);
-                    pressureModeForwarding(path, dstN, ttl, visits);
+                    visits.increment(n);
+                    pressureModeForwarding(result, dst, ttl, ct);
                 } catch (PerimeterForwardingException e) //indicates absence of neighbors for n (disconnected node)
                 {
                     System.out.println(e.toString());
-                    headerSize.add(visits.size());
-                    return path;
+                    result.setStatus(PathResult.Status.NO_NEXT_HOP);
+                    result.setHeaderSize(visits.size());
+                    return;
                 }
             else
-                path.add(next);
+                result.add(next, PathResult.Mode.GREEDY);
         }
 
-        headerSize.add(visits.size());
-        return path;
+        result.finish(dst);
+        result.setHeaderSize(visits.size());
     }
 
     /**
      * This method forwards packet in a Pressure mode of GPGF (when possible returns back to Greedy Forwarding mode)
-     * @param path - path traversed by a packet so far
-     * @param dstN - destination node
+     * @param result - path traversed by a packet so far
+     * @param dst - destination node id
      * @param ttl - packet's TTL
-     * @param visits - map to store information about packet's node visits
+     * @param ct - compact topology to scan neighbors
      * @throws PerimeterForwardingException
      */
-    private void pressureModeForwarding(List<Node> path, Node dstN, int ttl, Map<Node, Integer> visits) throws PerimeterForwardingException {
-        Node n = path.get(path.size() - 1);
-        double sDist = EuclDist.d(n.getX(), n.getY(), dstN.getX(), dstN.getY());
-        while (path.get(path.size() - 1).getId() != dstN.getId() && path.size() < ttl) {
-            n = path.get(path.size() - 1);
+    private void pressureModeForwarding(PathResult result, int dst, int ttl, CompactTopology ct) throws PerimeterForwardingException {
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
+        int n = result.getLast();
+        double sDist = EuclDist.d(x[n], y[n], x[dst], y[dst]);
+        while (result.getLast() != dst && result.size() < ttl) {
+            n = result.getLast();
+            //find min visits of next hop candidates (neighbors that were not visited have 0 visits)
             int minVisits = Integer.MAX_VALUE;
-            for (Node neighbor : n.getNeighbors())
-                if (!visits.containsKey(neighbor)) {
-                    minVisits = 0;
-                    break;
-                } else if (visits.get(neighbor) < minVisits)
-                    minVisits = visits.get(neighbor);
-
-            List<Node> candidates = new ArrayList<>();
-            for (Node neighbor : n.getNeighbors())
-                if (!visits.containsKey(neighbor))
-                    candidates.add(neighbor);
-                else if (visits.get(neighbor) == minVisits)
-                    candidates.add(neighbor);
-
-            Node next = null;
+            for (int k = offsets[n]; k < ends[n] && minVisits > 0; k++)
+                minVisits = Math.min(minVisits, visits.get(targets[k]));
+
+            //closest to the destination min visited candidate
+            int next = -1;
             double min = Double.MAX_VALUE;
-            for (Node candidate : candidates)
-                if (EuclDist.d(candidate.getX(), candidate.getY(), dstN.getX(), dstN.getY()) < min) {
+            for (int k = offsets[n]; k < ends[n]; k++) {
+                int candidate = targets[k];
+                if (visits.get(candidate) != minVisits)
+                    continue;
+                double d = EuclDist.d(x[candidate], y[candidate], x[dst], y[dst]);
+                if (d < min) {
                     next = candidate;
-                    min = EuclDist.d(next.getX(), next.getY(), dstN.getX(), dstN.getY());
+                    min = d;
                 }
+            }
 
-            if (next == null)
+            if (next < 0)
                 throw new PerimeterForwardingException("Pressure Mode Forwarding didn't found next hop!");
 
-            path.add(next);
+            result.add(next, PathResult.Mode.PRESSURE);
 
             //store new visits
-            if (!visits.containsKey(next))
-                visits.put(next, 1);
-            else
-                visits.put(next, visits.get(next) + 1);
+            visits.increment(next);
 
-            if (EuclDist.d(next.getX(), next.getY(), dstN.getX(), dstN.getY()) < sDist) //return to GF
+            if (EuclDist.d(x[next], y[next], x[dst], y[dst]) < sDist) //return to GF
                 return;
         }
     }
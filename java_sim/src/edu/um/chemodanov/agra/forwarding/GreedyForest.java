@@ -0,0 +1,214 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.Topology;
+import edu.um.chemodanov.agra.routing.BFSConstant;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.Arrays;
+
+/**
+ * Greedy successor forest of a single destination. Plain GF (i.e., without perimeter mode) is memoryless: the next hop
+ * only depends on the current node and the destination, so GF paths to the destination form a forest whose roots are
+ * the destination itself and local minima. Successors, depths and roots are resolved lazily and memoized,
+ * so routing many sources to the same destination visits every node at most once (and resolveAll() builds the whole
+ * reachability map in O(E)). As in BFS, state is kept in reusable arrays stamped with the epoch of the destination,
+ * hence an instance must not be shared by concurrent threads
+ */
+public class GreedyForest implements BFSConstant
+{
+    private static final int[] EMPTY = new int[0];
+
+    private int[] successor = EMPTY; // greedy next hop or NIL at the root of a tree
+    private int[] depth = EMPTY; // number of greedy hops to the root
+    private int[] root = EMPTY;
+    private int[] resolved = EMPTY; // epoch in which successor of a node was resolved
+    private int[] walked = EMPTY; // epoch in which depth and root of a node were resolved
+    private int[] stack = EMPTY;
+    private int epoch = 0;
+
+    private int[] offsets;
+    private int[] targets;
+    private int[] ends;
+    private double[] x;
+    private double[] y;
+    private int dst = NIL;
+
+    /**
+     * Starts a new forest, i.e., forgets all paths resolved for the previous destination
+     * @param dst - destination node id
+     * @param t - network topology (it must not change while the forest is used)
+     */
+    public void setDestination(int dst, Topology t)
+    {
+        CompactTopology ct = t.getCompactTopology();
+        int nodesNum = ct.getNodesNum();
+        if (resolved.length != nodesNum)
+        {
+            successor = new int[nodesNum];
+            depth = new int[nodesNum];
+            root = new int[nodesNum];
+            resolved = new int[nodesNum];
+            walked = new int[nodesNum];
+            stack = new int[nodesNum];
+            epoch = 0;
+        }
+        if (epoch == Integer.MAX_VALUE)
+        {
+            Arrays.fill(resolved, 0);
+            Arrays.fill(walked, 0);
+            epoch = 0;
+        }
+        epoch++;
+        this.offsets = ct.getNeighborOffsets();
+        this.targets = ct.getNeighborTargets();
+        this.ends = ct.getNeighborEnds();
+        this.x = ct.getX();
+        this.y = ct.getY();
+        this.dst = dst;
+    }
+
+    public int getDestination()
+    {
+        return this.dst;
+    }
+
+    /**
+     * @param u - node id
+     * @return next hop of GF from u or NIL if u is the destination or a local minimum
+     */
+    public int getSuccessor(int u)
+    {
+        if (resolved[u] != epoch)
+        {
+            resolved[u] = epoch;
+            int next = NIL;
+            if (u != dst)
+            {
+                //same choice as GF, i.e., the first neighbor that is strictly closer to the destination than others
+                double min = EuclDist.d(x[u], y[u], x[dst], y[dst]);
+                for (int k = offsets[u]; k < ends[u]; k++)
+                {
+                    int neighbor = targets[k];
+                    double d = EuclDist.d(x[neighbor], y[neighbor], x[dst], y[dst]);
+                    if (d < min)
+                    {
+                        next = neighbor;
+                        min = d;
+                    }
+                }
+            }
+            successor[u] = next;
+        }
+        return successor[u];
+    }
+
+    /**
+     * @param u - node id
+     * @return node where GF from u stops, i.e., the destination if it is delivered or a local minimum otherwise
+     */
+    public int getRoot(int u)
+    {
+        walk(u);
+        return root[u];
+    }
+
+    /**
+     * @param u - node id
+     * @return number of GF hops from u to its root
+     */
+    public int getDepth(int u)
+    {
+        walk(u);
+        return depth[u];
+    }
+
+    /**
+     * Resolves paths of all nodes at once (e.g., to get the whole network reachability map of the destination)
+     */
+    public void resolveAll()
+    {
+        for (int u = 0; u < resolved.length; u++)
+            walk(u);
+    }
+
+    /**
+     * @param src - source node id
+     * @param ttl - the packet's TTL
+     * @return length (in nodes) of the GF path from src if it reaches the destination within TTL or 0 otherwise,
+     * i.e., the same as the path returned by GF.greedyForwarding without perimeter mode
+     */
+    public int pathLength(int src, int ttl)
+    {
+        walk(src);
+        return root[src] == dst && (depth[src] == 0 || depth[src] + 1 <= ttl) ? depth[src] + 1 : 0;
+    }
+
+    /**
+     * @param src - source node id
+     * @param ttl - the packet's TTL
+     * @return true if GF from src faces a local minimum before its TTL expires
+     */
+    public boolean facesLocalMinimum(int src, int ttl)
+    {
+        walk(src);
+        return root[src] != dst && depth[src] + 1 < ttl;
+    }
+
+    /**
+     * internal method that walks greedy successors from u until a resolved node or a root
+     * and then memoizes depths and roots of all walked nodes in the reverse order.
+     * GF strictly decreases the distance to the destination, so walks never cycle
+     * @param u - node id
+     */
+    private void walk(int u)
+    {
+        int top = 0;
+        int n = u;
+        while (walked[n] != epoch)
+        {
+            int next = getSuccessor(n);
+            if (next == NIL)
+            {
+                walked[n] = epoch;
+                depth[n] = 0;
+                root[n] = n;
+                break;
+            }
+            stack[top++] = n;
+            n = next;
+        }
+        while (top > 0)
+        {
+            int m = stack[--top];
+            walked[m] = epoch;
+            depth[m] = depth[n] + 1;
+            root[m] = root[n];
+            n = m;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import java.util.Arrays;
+
+/**
+ * Brent's cycle detection over packet states of a deterministic forwarding mode. A caller fills the state words of
+ * every hop (e.g., current node, previous node and packet fields) and asks if it repeats a saved state: since the next
+ * hop is a function of the state, a repeated state means that the packet cycles forever and will never reach its
+ * destination. States are saved at hops 2^k - 1, so a cycle of lambda hops entered after mu hops is reported within
+ * 2 max(mu + 1, lambda) + lambda - 1 hops, while only a single saved state is kept. An instance must not be shared by
+ * concurrent threads
+ */
+public class LoopDetector
+{
+    private final long[] state;
+    private final long[] saved;
+    private boolean hasSaved;
+    private int power; // hops between two saved states
+    private int steps; // hops since the last saved state
+
+    /**
+     * @param width - number of state words
+     */
+    public LoopDetector(int width)
+    {
+        this.state = new long[width];
+        this.saved = new long[width];
+    }
+
+    /**
+     * Forgets the saved state, e.g., when a new packet is forwarded
+     */
+    public void reset()
+    {
+        this.hasSaved = false;
+    }
+
+    public void set(int i, long value)
+    {
+        this.state[i] = value;
+    }
+
+    public void set(int i, double value)
+    {
+        this.state[i] = Double.doubleToLongBits(value);
+    }
+
+    /**
+     * @return true if the current state equals the saved one, i.e., the packet is in a loop
+     */
+    public boolean looped()
+    {
+        if (hasSaved && Arrays.equals(state, saved))
+            return true;
+        if (!hasSaved || steps == power)
+        {
+            System.arraycopy(state, 0, saved, 0, state.length);
+            power = hasSaved ? 2 * power : 1;
+            hasSaved = true;
+            steps = 0;
+        }
+        steps++;
+        return false;
+    }
+}
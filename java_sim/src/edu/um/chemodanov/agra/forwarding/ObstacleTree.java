@@ -0,0 +1,222 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.Obstacle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Quadtree over obstacles for the Barnes-Hut approximation of the repulsive potential. Every cell keeps the total
+ * charge of its obstacles and their charge-weighted center, so a cell that looks small from the evaluated point
+ * (i.e., its side over the distance to its center is below theta) contributes as a single charge. With a bounded
+ * theta an evaluation visits O(log n) cells instead of all n obstacles. The structure only depends on obstacle centers
+ * and is built once per list of obstacles; aggregated charges are recomputed per destination
+ */
+public class ObstacleTree {
+    public static final int LEAF_SIZE = 8; // max obstacles in a leaf
+    private static final int MAX_DEPTH = 32; // coincident obstacles stay in a single leaf
+
+    private List<Obstacle> obstacles; // obstacles the tree was built for
+    private int[] order; // obstacle ids sorted by cells, i.e., cell c holds order[first[c]..first[c] + count[c])
+    private double[] ox; // obstacle centers and charges in the cell order
+    private double[] oy;
+    private double[] oq;
+    private double[] charges; // charges the aggregates were computed for
+
+    //cells in preorder (children follow their parent)
+    private int cellsNum;
+    private int[] first;
+    private int[] count;
+    private int[] child; // first of 4 consecutive children or -1 for leaves
+    private double[] side;
+    private double[] cq; // total charge
+    private double[] cx; // charge-weighted center
+    private double[] cy;
+    private int[] stack;
+
+    /**
+     * @param obstacles - obstacles indexed by id, e.g., circumscribed obstacles of the topology
+     */
+    public ObstacleTree(List<Obstacle> obstacles) {
+        this.obstacles = obstacles;
+        int n = obstacles.size();
+        order = new int[n];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            Obstacle h = obstacles.get(i);
+            order[i] = h.getId();
+            minX = Math.min(minX, h.getX());
+            minY = Math.min(minY, h.getY());
+            maxX = Math.max(maxX, h.getX());
+            maxY = Math.max(maxY, h.getY());
+        }
+        int capacity = Math.max(16, n / 2);
+        first = new int[capacity];
+        count = new int[capacity];
+        child = new int[capacity];
+        side = new double[capacity];
+        int[] buffer = new int[n];
+        newCell(0, n, n == 0 ? 0 : Math.max(maxX - minX, maxY - minY));
+        build(0, minX, minY, 0, buffer);
+
+        ox = new double[n];
+        oy = new double[n];
+        oq = new double[n];
+        for (int i = 0; i < n; i++) {
+            Obstacle h = obstacles.get(order[i]);
+            ox[i] = h.getX();
+            oy[i] = h.getY();
+        }
+        cq = new double[cellsNum];
+        cx = new double[cellsNum];
+        cy = new double[cellsNum];
+        stack = new int[3 * MAX_DEPTH + 4];
+    }
+
+    /**
+     * @return true if the tree was built for this list of obstacles
+     */
+    public boolean isBuiltFor(List<Obstacle> obstacles) {
+        return this.obstacles == obstacles;
+    }
+
+    /**
+     * Aggregates charges that a destination induces at obstacles (nothing to do if they are the same as last time)
+     *
+     * @param charges - charges indexed by obstacle id, they must not be negative
+     */
+    public void setCharges(double[] charges) {
+        if (charges == this.charges)
+            return;
+        this.charges = charges;
+        for (int i = 0; i < order.length; i++)
+            oq[i] = charges[order[i]];
+        //children follow their parents, so a reverse pass aggregates them first
+        for (int c = cellsNum - 1; c >= 0; c--) {
+            double q = 0, qx = 0, qy = 0;
+            if (child[c] < 0)
+                for (int i = first[c]; i < first[c] + count[c]; i++) {
+                    q += oq[i];
+                    qx += oq[i] * ox[i];
+                    qy += oq[i] * oy[i];
+                }
+            else
+                for (int k = child[c]; k < child[c] + 4; k++) {
+                    q += cq[k];
+                    qx += cq[k] * cx[k];
+                    qy += cq[k] * cy[k];
+                }
+            cq[c] = q;
+            cx[c] = q > 0 ? qx / q : 0;
+            cy[c] = q > 0 ? qy / q : 0;
+        }
+    }
+
+    /**
+     * @param x - x coordinate of the point
+     * @param y - y coordinate of the point
+     * @param theta - accuracy, i.e., max ratio of a cell side to its distance that is taken as a single charge
+     * @param kernel - kernel that attenuates charges with the distance
+     * @return repulsive potential of the obstacles at point (x, y)
+     */
+    double repulsion(double x, double y, double theta, PotentialKernel kernel) {
+        if (cellsNum == 0 || count[0] == 0)
+            return 0;
+        double theta2 = theta * theta;
+        double potential = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int c = stack[--top];
+            if (cq[c] == 0)
+                continue;
+            double dx = cx[c] - x;
+            double dy = cy[c] - y;
+            if (child[c] < 0) {
+                for (int i = first[c]; i < first[c] + count[c]; i++)
+                    potential += oq[i] / kernel.attenuation(ox[i] - x, oy[i] - y);
+            } else if (side[c] * side[c] < theta2 * (dx * dx + dy * dy))
+                potential += cq[c] / kernel.attenuation(dx, dy);
+            else
+                for (int k = child[c]; k < child[c] + 4; k++)
+                    stack[top++] = k;
+        }
+        return potential;
+    }
+
+    private int newCell(int from, int n, double cellSide) {
+        if (cellsNum == first.length) {
+            int capacity = 2 * cellsNum;
+            first = Arrays.copyOf(first, capacity);
+            count = Arrays.copyOf(count, capacity);
+            child = Arrays.copyOf(child, capacity);
+            side = Arrays.copyOf(side, capacity);
+        }
+        first[cellsNum] = from;
+        count[cellsNum] = n;
+        child[cellsNum] = -1;
+        side[cellsNum] = cellSide;
+        return cellsNum++;
+    }
+
+    /**
+     * internal method that splits cell c with the lower left corner (x0, y0) into quadrants
+     */
+    private void build(int c, double x0, double y0, int depth, int[] buffer) {
+        int from = first[c];
+        int n = count[c];
+        if (n <= LEAF_SIZE || depth == MAX_DEPTH)
+            return;
+        double half = side[c] / 2;
+        double midX = x0 + half;
+        double midY = y0 + half;
+
+        //counting sort of the cell obstacles by quadrant
+        int[] quadrantCount = new int[4];
+        for (int i = from; i < from + n; i++)
+            quadrantCount[quadrant(order[i], midX, midY)]++;
+        int[] quadrantFirst = new int[4];
+        for (int k = 1; k < 4; k++)
+            quadrantFirst[k] = quadrantFirst[k - 1] + quadrantCount[k - 1];
+        int[] filled = quadrantFirst.clone();
+        for (int i = from; i < from + n; i++)
+            buffer[filled[quadrant(order[i], midX, midY)]++] = order[i];
+        System.arraycopy(buffer, 0, order, from, n);
+
+        int firstChild = cellsNum;
+        for (int k = 0; k < 4; k++)
+            newCell(from + quadrantFirst[k], quadrantCount[k], half);
+        child[c] = firstChild;
+        for (int k = 0; k < 4; k++)
+            build(firstChild + k, (k & 1) == 0 ? x0 : midX, (k & 2) == 0 ? y0 : midY, depth + 1, buffer);
+    }
+
+    private int quadrant(int id, double midX, double midY) {
+        Obstacle h = obstacles.get(id);
+        return (h.getX() < midX ? 0 : 1) | (h.getY() < midY ? 0 : 2);
+    }
+}
@@ -0,0 +1,186 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable outcome of a forwarded packet: ids of the path nodes (starting with the source), how forwarding ended,
+ * packet header size and number of hops made in every forwarding mode. The hop buffer only grows,
+ * so a result reused by many packets stops allocating once it fits the longest path
+ */
+public class PathResult
+{
+    public enum Status
+    {
+        DELIVERED, // the path ends at the destination
+        LOCAL_MINIMUM, // no mode of the approach has a next hop
+        LOOPED, // the packet went around a loop it would never leave
+        NO_NEXT_HOP, // recovery mode did not find a next hop (e.g., a disconnected node)
+        TTL_EXPIRED
+    }
+
+    public enum Mode
+    {
+        GREEDY, PERIMETER, PRESSURE, REPULSION, ATTRACTION
+    }
+
+    private static final int MODES = Mode.values().length;
+
+    private int[] hops = new int[16];
+    private int size;
+    private Status status;
+    private int headerSize;
+    private int[] modeHops = new int[MODES];
+
+    /**
+     * Starts a new path at the source node
+     * @param src - source node id
+     */
+    void reset(int src)
+    {
+        hops[0] = src;
+        size = 1;
+        status = null;
+        headerSize = 0;
+        Arrays.fill(modeHops, 0);
+    }
+
+    /**
+     * Appends the next hop of the path
+     * @param node - node id
+     * @param mode - forwarding mode that chose the hop
+     */
+    void add(int node, Mode mode)
+    {
+        if (size == hops.length)
+            hops = Arrays.copyOf(hops, 2 * size);
+        hops[size++] = node;
+        modeHops[mode.ordinal()]++;
+    }
+
+    void setStatus(Status status)
+    {
+        this.status = status;
+    }
+
+    /**
+     * Sets the status of a packet which was forwarded until it reached the destination or the TTL expired
+     * @param dst - destination node id
+     */
+    void finish(int dst)
+    {
+        this.status = getLast() == dst ? Status.DELIVERED : Status.TTL_EXPIRED;
+    }
+
+    void setHeaderSize(int headerSize)
+    {
+        this.headerSize = headerSize;
+    }
+
+    /**
+     * @return number of nodes on the path (including the source)
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @param i - index of the node on the path
+     * @return id of the i-th node
+     */
+    public int get(int i)
+    {
+        return this.hops[i];
+    }
+
+    /**
+     * @return id of the last node on the path
+     */
+    public int getLast()
+    {
+        return this.hops[size - 1];
+    }
+
+    /**
+     * @return id of the node before the last one
+     */
+    int getPrevious()
+    {
+        return this.hops[size - 2];
+    }
+
+    public Status getStatus()
+    {
+        return this.status;
+    }
+
+    public boolean isDelivered()
+    {
+        return this.status == Status.DELIVERED;
+    }
+
+    /**
+     * @return path length (in nodes) if the packet was delivered or 0 otherwise
+     */
+    public int getDeliveredLength()
+    {
+        return isDelivered() ? size : 0;
+    }
+
+    /**
+     * @return number of distinct nodes recorded in the packet header (only for approaches with pressure mode)
+     */
+    public int getHeaderSize()
+    {
+        return this.headerSize;
+    }
+
+    /**
+     * @param mode - forwarding mode
+     * @return number of hops chosen in the given mode
+     */
+    public int getModeHops(Mode mode)
+    {
+        return this.modeHops[mode.ordinal()];
+    }
+
+    /**
+     * @param nodes - topology nodes (indexed by id)
+     * @return nodes of the path
+     */
+    public List<Node> toNodes(List<Node> nodes)
+    {
+        List<Node> path = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            path.add(nodes.get(hops[i]));
+        return path;
+    }
+}
@@ -0,0 +1,275 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.LocalObstacles;
+import edu.um.chemodanov.agra.model.Obstacle;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of potential tables by destination and deg. For a fixed destination, deg and obstacle knowledge the potential
+ * of a node is fixed, so it is computed (by PotentialKernel) on first use and then shared by all hops and all pairs
+ * routed to that destination. With global knowledge a table holds potentials of nodes. With local knowledge
+ * a node evaluates its neighbors with its own obstacles, so the table also holds potentials of links, i.e., of link
+ * targets as seen by link sources. Tables are filled lazily (destinations with a single pair would not pay back
+ * a full table) and evicted in the least recently used order once they take more than the memory budget. Entries are
+ * epoch-stamped, so an evicted table is recycled without clearing it. Cached tables are dropped when links are rebuilt
+ * (limiting the radio range keeps them, as potentials do not depend on links), obstacles or the charge of destinations change and a table is recomputed when the obstacle knowledge of nodes it was computed
+ * with changes. This class is not thread-safe
+ */
+public class PotentialCache {
+    public static final long DEFAULT_BUDGET = 16L << 20; // bytes
+
+    private long budget;
+    private long bytes; // taken by the cached tables
+    private Map<Key, Table> tables = new LinkedHashMap<>(16, 0.75f, true); // in access order
+    private Table spare; // last evicted table to recycle
+
+    //what the cached tables were computed for
+    private CompactTopology ct;
+    private List<Obstacle> obstacles;
+    private double q;
+    private double theta;
+    private boolean fastIntDeg;
+
+    //selected table
+    private PotentialKernel kernel = new PotentialKernel();
+    private LocalObstacles local;
+    private double[] charges;
+    private double dstX;
+    private double dstY;
+    private Table table;
+    private int gathered; // node whose obstacles the kernel holds (with local knowledge)
+
+    public PotentialCache() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param budget - max memory (in bytes) that cached tables may take, the selected table is always kept
+     */
+    public PotentialCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param budget - max memory (in bytes) that cached tables may take, the selected table is always kept
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * @param theta - accuracy of the Barnes-Hut approximation of the repulsion (see PotentialKernel)
+     */
+    public void setTheta(double theta) {
+        if (theta != this.theta) {
+            this.theta = theta;
+            kernel.setTheta(theta);
+            clear();
+        }
+    }
+
+    /**
+     * @param fastIntDeg - see PotentialKernel.setFastIntDeg
+     */
+    public void setFastIntDeg(boolean fastIntDeg) {
+        if (fastIntDeg != this.fastIntDeg) {
+            this.fastIntDeg = fastIntDeg;
+            kernel.setFastIntDeg(fastIntDeg);
+            clear();
+        }
+    }
+
+    public void clear() {
+        tables.clear();
+        bytes = 0;
+        table = null;
+        spare = null;
+    }
+
+    /**
+     * Selects the table whose potentials are looked up by node and link methods
+     *
+     * @param dst - destination node id
+     * @param ct - CSR snapshot of the current links
+     * @param obstacles - obstacles indexed by id, e.g., circumscribed obstacles of the topology
+     * @param local - local obstacle knowledge of nodes or null if all nodes know all obstacles
+     * @param charges - charges that the destination induces at obstacles, indexed by obstacle id
+     * @param deg - degree of the potential
+     * @param q - charge of the destination
+     */
+    public void select(int dst, CompactTopology ct, List<Obstacle> obstacles, LocalObstacles local, double[] charges,
+                       double deg, double q) {
+        if (ct != this.ct || obstacles != this.obstacles || q != this.q) {
+            this.ct = ct;
+            this.obstacles = obstacles;
+            this.q = q;
+            clear();
+        }
+
+        this.local = local;
+        this.charges = charges;
+        this.dstX = ct.getX()[dst];
+        this.dstY = ct.getY()[dst];
+        kernel.setDeg(deg);
+        Key key = new Key(dst, deg);
+        table = tables.get(key);
+        if (table != null && table.local != local) {
+            //obstacle knowledge was rebuilt (the size is the same as it only depends on links)
+            table.local = local;
+            table.newEpoch();
+        } else if (table == null) {
+            int size = ct.getNodesNum();
+            if (local != null)
+                size += ct.getNeighborTargets().length;
+            if (spare != null && spare.values.length == size) {
+                table = spare;
+                table.newEpoch();
+            } else
+                table = new Table(size);
+            table.local = local;
+            spare = null;
+            tables.put(key, table);
+            bytes += table.bytes();
+            evict();
+        }
+        gathered = -1;
+        if (local == null)
+            kernel.setObstacles(obstacles, null, 0, obstacles.size(), charges);
+    }
+
+    /**
+     * @return potential of node u with the obstacles it knows
+     */
+    public double node(int u) {
+        Table tb = table;
+        if (tb.stamps[u] == tb.epoch)
+            return tb.values[u];
+        gather(u);
+        tb.stamps[u] = tb.epoch;
+        return tb.values[u] = kernel.potential(ct.getX()[u], ct.getY()[u], dstX, dstY, q);
+    }
+
+    /**
+     * @param k - link, i.e., index of CompactTopology.getNeighborTargets()
+     * @param u - source node of the link
+     * @return potential of the link target with the obstacles that the source knows
+     */
+    public double link(int k, int u) {
+        int v = ct.getNeighborTargets()[k];
+        if (local == null)
+            return node(v);
+        Table tb = table;
+        int i = ct.getNodesNum() + k;
+        if (tb.stamps[i] == tb.epoch)
+            return tb.values[i];
+        gather(u);
+        tb.stamps[i] = tb.epoch;
+        return tb.values[i] = kernel.potential(ct.getX()[v], ct.getY()[v], dstX, dstY, q);
+    }
+
+    /**
+     * internal method that gathers obstacles known by node u into the kernel (with local knowledge)
+     */
+    private void gather(int u) {
+        if (local == null || gathered == u)
+            return;
+        int[] offsets = local.getOffsets();
+        kernel.setObstacles(obstacles, local.getIds(), offsets[u], offsets[u + 1], charges);
+        gathered = u;
+    }
+
+    /**
+     * internal method that drops least recently used tables until the rest fits into the budget
+     */
+    private void evict() {
+        Iterator<Table> it = tables.values().iterator();
+        while (bytes > budget && it.hasNext()) {
+            Table eldest = it.next();
+            if (eldest == table)
+                continue;
+            bytes -= eldest.bytes();
+            it.remove();
+            spare = eldest;
+        }
+    }
+
+    private static class Key {
+        private final int dst;
+        private final double deg;
+
+        Key(int dst, double deg) {
+            this.dst = dst;
+            this.deg = deg;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return dst == key.dst && Double.compare(deg, key.deg) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dst + Double.valueOf(deg).hashCode();
+        }
+    }
+
+    /**
+     * Potentials with epoch stamps, i.e., an entry is computed if its stamp equals the epoch of the table
+     */
+    private static class Table {
+        private LocalObstacles local; // obstacle knowledge the potentials were computed with
+        private double[] values;
+        private int[] stamps;
+        private int epoch = 1;
+
+        Table(int size) {
+            values = new double[size];
+            stamps = new int[size];
+        }
+
+        void newEpoch() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        long bytes() {
+            return 12L * values.length;
+        }
+    }
+}
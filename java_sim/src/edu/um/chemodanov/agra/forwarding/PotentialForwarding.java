@@ -0,0 +1,104 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+/**
+ * Base of the engines that forward packets over the AGRA potential field (ARGF, ARPGF and ARPSR with global or local
+ * obstacle knowledge). It holds the degree of the potential and the way the engines evaluate potentials: by
+ * PotentialKernel over primitive arrays (by default) or by the original loops over nodes and obstacles, and optionally
+ * by lookups in per destination tables of PotentialCache that the kernel fills on first use
+ */
+public abstract class PotentialForwarding implements ForwardingEngine {
+    protected double deg;
+    protected ChargeTable chargeTable = new ChargeTable();
+    protected PotentialKernel kernel = new PotentialKernel();
+    protected boolean useKernel = true;
+    protected PotentialCache cache = new PotentialCache();
+    protected boolean useCache = false;
+
+    /**
+     * @param deg - default degree of the potential
+     */
+    protected PotentialForwarding(double deg) {
+        setDeg(deg);
+    }
+
+    public void setDeg(double deg) {
+        this.deg = deg;
+        kernel.setDeg(deg);
+    }
+
+    /**
+     * @param useKernel - if true (by default) then potentials are computed by PotentialKernel, which gives exactly
+     *                  the same results as the original loops unless setFastIntDeg or setTheta is on. False restores
+     *                  the original loops, i.e., it also bypasses the potential cache
+     */
+    public void setUseKernel(boolean useKernel) {
+        this.useKernel = useKernel;
+    }
+
+    /**
+     * @param fastIntDeg - if true then the kernel raises squared distances to integral degrees by multiplications
+     *                   instead of Math.pow, which is faster, but may change the last bits of potentials and hence
+     *                   break ties between next hops differently (false by default)
+     */
+    public void setFastIntDeg(boolean fastIntDeg) {
+        kernel.setFastIntDeg(fastIntDeg);
+        cache.setFastIntDeg(fastIntDeg);
+    }
+
+    /**
+     * @param useCache - if true then potentials are looked up in the potential cache (only with the kernel on) rather
+     *                 than computed at every hop (false by default). It pays off when many pairs share destinations
+     *                 and nodes know many obstacles, since with local knowledge tables have an entry per link
+     */
+    public void setUseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+
+    /**
+     * @param theta - accuracy of the Barnes-Hut approximation of the repulsion over all obstacles (e.g., 0.5), 0 (by
+     *              default) for the exact sum. It is only used with global obstacle knowledge and the kernel on
+     */
+    public void setTheta(double theta) {
+        kernel.setTheta(theta);
+        cache.setTheta(theta);
+    }
+
+    /**
+     * @param budget - max memory (in bytes) that cached potential tables may take (PotentialCache.DEFAULT_BUDGET
+     *               by default)
+     */
+    public void setCacheBudget(long budget) {
+        cache.setBudget(budget);
+    }
+
+    /**
+     * @return true if potentials are looked up in the cache (it is filled by the kernel)
+     */
+    protected boolean isCached() {
+        return useKernel && useCache;
+    }
+}
@@ -0,0 +1,199 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.List;
+
+/**
+ * Evaluator of the AGRA potential field (attraction of the destination plus repulsion of obstacles) over
+ * struct-of-arrays data. Coordinates and charges of the obstacles a node knows are gathered into primitive arrays once
+ * per hop, and potentials of a whole block of neighbors are computed obstacle by obstacle in tight loops over
+ * primitive arrays, i.e., without getters, list lookups and pointer chasing per term. Every potential sums its terms in
+ * the same order as the per-neighbor loops of the engines, so both give exactly the same results. Degrees 1 and 2
+ * (chosen once by setDeg) skip Math.pow with the same bits of results. Other integral degrees only skip it when
+ * setFastIntDeg is on, since multiplying squared distances may change the last bits of potentials. With a positive
+ * theta the repulsion of all obstacles is approximated by the Barnes-Hut ObstacleTree, while theta = 0 (by default)
+ * keeps the exact sum. Buffers are reused, hence this class is not thread-safe
+ */
+public class PotentialKernel {
+    public static final int MAX_INT_DEG = 8; // larger integral degrees take the general path
+
+    private double deg = 1;
+    private int intDeg = 1; // deg if it takes the integral path, 0 for Math.pow
+    private boolean fastIntDeg; // integral degrees multiply squared distances (may change the last bits)
+    private double[] hx = new double[16]; // gathered obstacles
+    private double[] hy = new double[16];
+    private double[] hq = new double[16];
+    private int obstaclesNum;
+    private double theta;
+    private ObstacleTree tree; // of the last list of obstacles gathered entirely
+    private boolean useTree; // gathered obstacles are evaluated by the tree
+    private double[] bx = new double[16]; // gathered nodes of the last block
+    private double[] by = new double[16];
+    private double[] potentials = new double[16];
+
+    /**
+     * Sets degree of the potential and picks the integral or the general path for it
+     *
+     * @param deg - degree of the potential
+     */
+    public void setDeg(double deg) {
+        this.deg = deg;
+        pickPath();
+    }
+
+    /**
+     * @param fastIntDeg - if true then all integral degrees up to MAX_INT_DEG multiply squared distances instead of
+     *                   calling Math.pow, which may change the last bits of potentials (false by default)
+     */
+    public void setFastIntDeg(boolean fastIntDeg) {
+        this.fastIntDeg = fastIntDeg;
+        pickPath();
+    }
+
+    /**
+     * @param theta - accuracy of the Barnes-Hut approximation of the repulsion (e.g., 0.5),
+     *              0 for the exact sum over obstacles
+     */
+    public void setTheta(double theta) {
+        this.theta = theta;
+    }
+
+    /**
+     * Gathers obstacles that the current node knows (if all obstacles are known and theta is positive then
+     * the obstacle tree is used instead)
+     *
+     * @param obstacles - obstacles indexed by id
+     * @param ids - ids of the known obstacles are ids[from..to) or null if all obstacles are known
+     * @param from - first known obstacle
+     * @param to - index after the last known obstacle
+     * @param charges - charges induced at obstacles, indexed by obstacle id
+     */
+    public void setObstacles(List<Obstacle> obstacles, int[] ids, int from, int to, double[] charges) {
+        useTree = theta > 0 && ids == null;
+        if (useTree) {
+            if (tree == null || !tree.isBuiltFor(obstacles))
+                tree = new ObstacleTree(obstacles);
+            tree.setCharges(charges);
+            return;
+        }
+        obstaclesNum = to - from;
+        if (obstaclesNum > hx.length) {
+            int capacity = Math.max(obstaclesNum, 2 * hx.length);
+            hx = new double[capacity];
+            hy = new double[capacity];
+            hq = new double[capacity];
+        }
+        for (int i = 0; i < obstaclesNum; i++) {
+            Obstacle h = obstacles.get(ids == null ? from + i : ids[from + i]);
+            hx[i] = h.getX();
+            hy[i] = h.getY();
+            hq[i] = charges[h.getId()];
+        }
+    }
+
+    /**
+     * @return potential at point (x, y) for the destination at (dstX, dstY) with charge q and the gathered obstacles
+     */
+    public double potential(double x, double y, double dstX, double dstY, double q) {
+        double potential = -q / EuclDist.d(x, y, dstX, dstY);
+        if (useTree)
+            return potential + tree.repulsion(x, y, theta, this);
+        for (int i = 0; i < obstaclesNum; i++)
+            potential += hq[i] / attenuation(hx[i] - x, hy[i] - y);
+        return potential;
+    }
+
+    /**
+     * Computes potentials of a block of nodes, e.g., neighbors of the current node in the CSR snapshot
+     *
+     * @param x - x coordinates of nodes indexed by id
+     * @param y - y coordinates of nodes indexed by id
+     * @param targets - ids of the block nodes are targets[from..to)
+     * @param from - first node of the block
+     * @param to - index after the last node of the block
+     * @param dstX - x coordinate of the destination
+     * @param dstY - y coordinate of the destination
+     * @param q - charge of the destination
+     * @return potentials of the block nodes indexed by k - from (the array is reused by the next call)
+     */
+    public double[] potentials(double[] x, double[] y, int[] targets, int from, int to, double dstX, double dstY, double q) {
+        int blockSize = to - from;
+        if (blockSize > potentials.length) {
+            int capacity = Math.max(blockSize, 2 * potentials.length);
+            bx = new double[capacity];
+            by = new double[capacity];
+            potentials = new double[capacity];
+        }
+        double[] px = bx, py = by, p = potentials;
+        for (int j = 0; j < blockSize; j++) {
+            int u = targets[from + j];
+            px[j] = x[u];
+            py[j] = y[u];
+            p[j] = -q / EuclDist.d(px[j], py[j], dstX, dstY);
+        }
+        if (useTree) {
+            for (int j = 0; j < blockSize; j++)
+                p[j] += tree.repulsion(px[j], py[j], theta, this);
+            return p;
+        }
+        //obstacle by obstacle, so every potential still adds its terms in the obstacle order
+        for (int i = 0; i < obstaclesNum; i++) {
+            double ox = hx[i], oy = hy[i], c = hq[i];
+            for (int j = 0; j < blockSize; j++)
+                p[j] += c / attenuation(ox - px[j], oy - py[j]);
+        }
+        return p;
+    }
+
+    /**
+     * @return distance (dx, dy) raised to deg
+     */
+    double attenuation(double dx, double dy) {
+        double sq = dx * dx + dy * dy;
+        if (intDeg == 0)
+            return Math.pow(Math.sqrt(sq), deg);
+        if (!fastIntDeg) {
+            //Math.pow(d, 1) is d and Math.pow(d, 2) is d * d (special cases of fdlibm, which HotSpot keeps)
+            double d = Math.sqrt(sq);
+            return intDeg == 1 ? d : d * d;
+        }
+        double a = (intDeg & 1) == 0 ? 1 : Math.sqrt(sq);
+        for (int k = intDeg >> 1; k > 0; k--)
+            a *= sq;
+        return a;
+    }
+
+    /**
+     * internal method that picks the integral path for degrees where it gives the same results or if it is forced
+     */
+    private void pickPath() {
+        boolean integral = deg >= 1 && deg <= MAX_INT_DEG && deg == Math.floor(deg);
+        intDeg = integral && (fastIntDeg || deg <= 2) ? (int) deg : 0;
+    }
+}
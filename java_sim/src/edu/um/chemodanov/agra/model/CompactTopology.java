@@ -0,0 +1,209 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only compressed sparse row (CSR) snapshot of a topology.
+ * Neighbors of node u are stored in targets[offsets[u]..offsets[u+1]) sorted by Euclidean distance (ties are broken
+ * by id), so shrinking the radio range only shortens the linked prefix targets[offsets[u]..ends[u]) of every node
+ * while node sets, link indices and the arrays stay the same. Static links are stored in the same order as
+ * the corresponding Node set iterates them.
+ * Arrays returned by the getters are shared and must not be modified.
+ */
+public class CompactTopology
+{
+    private int nodesNum;
+    private double[] x;
+    private double[] y;
+    private boolean[] on;
+    private int[] neighborOffsets; // asymmetric links initialized by the topology
+    private int[] neighborTargets;
+    private int[] neighborEnds; // links in the current radio range are targets[offsets[u]..ends[u])
+    private int[] staticOffsets; // symmetric links in radio range
+    private int[] staticTargets;
+
+    /**
+     * @param t     - topology
+     * @param range - max link length (see limitNeighborRange)
+     */
+    public CompactTopology(Topology t, double range)
+    {
+        List<Node> nodes = t.getNodes();
+        this.nodesNum = nodes.size();
+        this.x = new double[nodesNum];
+        this.y = new double[nodesNum];
+        this.on = new boolean[nodesNum];
+
+        int neighborsNum = 0;
+        int staticNum = 0;
+        for (Node n : nodes)
+        {
+            x[n.getId()] = n.getX();
+            y[n.getId()] = n.getY();
+            on[n.getId()] = n.isOn();
+            if (n.isOn())
+            {
+                neighborsNum += n.getNeighbors().size();
+                staticNum += n.getStaticNeighbors().size();
+            }
+        }
+
+        this.neighborOffsets = new int[nodesNum + 1];
+        this.neighborTargets = new int[neighborsNum];
+        this.neighborEnds = new int[nodesNum];
+        this.staticOffsets = new int[nodesNum + 1];
+        this.staticTargets = new int[staticNum];
+        neighborsNum = staticNum = 0;
+        for (int u = 0; u < nodesNum; u++)
+        {
+            Node n = nodes.get(u);
+            if (n.isOn())
+            {
+                neighborsNum = fillByDistance(n, neighborTargets, neighborsNum);
+                staticNum = fill(n.getStaticNeighbors(), staticTargets, staticNum);
+            }
+            neighborOffsets[u + 1] = neighborsNum;
+            neighborEnds[u] = neighborsNum;
+            staticOffsets[u + 1] = staticNum;
+        }
+        limitNeighborRange(range);
+    }
+
+    /**
+     * internal method that stores neighbors of n sorted by distance from n (ties are broken by id)
+     */
+    private static int fillByDistance(Node n, int[] targets, int from)
+    {
+        //coordinates are integers, so (squared distance, id) fits into a single sortable long key
+        long[] keys = new long[n.getNeighbors().size()];
+        int k = 0;
+        for (Node neighbor : n.getNeighbors())
+        {
+            long dx = neighbor.getX() - n.getX();
+            long dy = neighbor.getY() - n.getY();
+            keys[k++] = ((dx * dx + dy * dy) << 32) | neighbor.getId();
+        }
+        Arrays.sort(keys);
+        for (long key : keys)
+            targets[from++] = (int) key;
+        return from;
+    }
+
+    /**
+     * Method to shrink radio range of all nodes, i.e., to unlink neighbors that are further than the given range.
+     * The linked neighbors are always a prefix, so the first one out of range is found with a binary search
+     *
+     * @param range - max link length (links can only be shrunk)
+     */
+    void limitNeighborRange(double range)
+    {
+        for (int u = 0; u < nodesNum; u++)
+        {
+            int lo = neighborOffsets[u], hi = neighborEnds[u];
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (EuclDist.d(x[u], y[u], x[neighborTargets[mid]], y[neighborTargets[mid]]) > range)
+                    hi = mid;
+                else
+                    lo = mid + 1;
+            }
+            neighborEnds[u] = lo;
+        }
+    }
+
+    private static int fill(Set<Node> set, int[] targets, int from)
+    {
+        for (Node n : set)
+            targets[from++] = n.getId();
+        return from;
+    }
+
+    public int getNodesNum()
+    {
+        return this.nodesNum;
+    }
+
+    public double[] getX()
+    {
+        return this.x;
+    }
+
+    public double[] getY()
+    {
+        return this.y;
+    }
+
+    public boolean isOn(int u)
+    {
+        return this.on[u];
+    }
+
+    /**
+     * @return offsets of the asymmetric links, i.e., neighbors of u are getNeighborTargets()[offsets[u]..offsets[u+1])
+     */
+    public int[] getNeighborOffsets()
+    {
+        return this.neighborOffsets;
+    }
+
+    public int[] getNeighborTargets()
+    {
+        return this.neighborTargets;
+    }
+
+    /**
+     * @return ends of the linked prefixes, i.e., neighbors of u in the current radio range are
+     * getNeighborTargets()[offsets[u]..ends[u]) (ends change when the range is limited)
+     */
+    public int[] getNeighborEnds()
+    {
+        return this.neighborEnds;
+    }
+
+    /**
+     * @return offsets of the symmetric (i.e., static) links
+     */
+    public int[] getStaticOffsets()
+    {
+        return this.staticOffsets;
+    }
+
+    public int[] getStaticTargets()
+    {
+        return this.staticTargets;
+    }
+
+    public int degree(int u)
+    {
+        return neighborEnds[u] - neighborOffsets[u];
+    }
+}
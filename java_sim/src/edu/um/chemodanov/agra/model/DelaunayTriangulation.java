@@ -0,0 +1,344 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Delaunay triangulation of the switched on nodes built with the Guibas-Stolfi divide and conquer algorithm,
+ * i.e., in O(n log n) time and O(n) memory. Predicates are evaluated exactly on integer coordinates, so collinear
+ * and cocircular nodes (e.g., grid deployments) are handled and one of the valid triangulations is returned.
+ * Coincident nodes are triangulated once, i.e., only the one with the smallest id gets Delaunay neighbors
+ */
+public class DelaunayTriangulation
+{
+    private static final int MAX_SPAN = 1 << 14; // keeps exact in-circle determinants within long range
+
+    private int[] offsets; // Delaunay neighbors of node u are targets[offsets[u]..offsets[u+1]) sorted by id
+    private int[] targets;
+
+    //quad-edge structure over the sorted points (used during construction only)
+    private int[] px;
+    private int[] py;
+    private int[] onext; // four records (edge, its rotations and reverse) per quad-edge
+    private int[] org; // origin point of the primal records, -1 for the dual records and deleted edges
+    private int quads;
+    private int[] free; // deleted quad-edges to reuse
+    private int freeNum;
+
+    /**
+     * @param nodes - topology nodes (indexed by id), only switched on nodes are triangulated
+     */
+    public DelaunayTriangulation(List<Node> nodes)
+    {
+        int nodesNum = nodes.size();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int onNum = 0;
+        for (Node n : nodes)
+            if (n.isOn())
+            {
+                minX = Math.min(minX, n.getX());
+                minY = Math.min(minY, n.getY());
+                maxX = Math.max(maxX, n.getX());
+                maxY = Math.max(maxY, n.getY());
+                onNum++;
+            }
+        if (onNum > 0 && ((long) maxX - minX >= MAX_SPAN || (long) maxY - minY >= MAX_SPAN))
+            throw new IllegalArgumentException("Nodes span more than " + MAX_SPAN + " units, which exact predicates do not support");
+
+        //sort points by x then y (coordinates are small, so (x, y, id) fits into a single sortable long key)
+        long[] keys = new long[onNum];
+        int k = 0;
+        for (Node n : nodes)
+            if (n.isOn())
+                keys[k++] = ((((long) (n.getX() - minX) << 14) | (n.getY() - minY)) << 32) | n.getId();
+        Arrays.sort(keys);
+
+        //drop coincident points
+        int[] pointNode = new int[onNum];
+        px = new int[onNum];
+        py = new int[onNum];
+        int pointsNum = 0;
+        for (int i = 0; i < onNum; i++)
+            if (i == 0 || (keys[i] >>> 32) != (keys[i - 1] >>> 32))
+            {
+                pointNode[pointsNum] = (int) keys[i];
+                px[pointsNum] = (int) (keys[i] >>> 46);
+                py[pointsNum] = (int) (keys[i] >>> 32) & (MAX_SPAN - 1);
+                pointsNum++;
+            }
+
+        int capacity = Math.max(4, 3 * pointsNum);
+        onext = new int[4 * capacity];
+        org = new int[4 * capacity];
+        free = new int[16];
+        if (pointsNum > 1)
+            triangulate(0, pointsNum - 1);
+
+        //collect Delaunay edges per node
+        int[] degree = new int[nodesNum + 1];
+        for (int q = 0; q < quads; q++)
+            if (org[4 * q] >= 0)
+            {
+                degree[pointNode[org[4 * q]]]++;
+                degree[pointNode[org[4 * q + 2]]]++;
+            }
+        offsets = new int[nodesNum + 1];
+        for (int u = 0; u < nodesNum; u++)
+            offsets[u + 1] = offsets[u] + degree[u];
+        targets = new int[offsets[nodesNum]];
+        int[] filled = Arrays.copyOf(offsets, nodesNum);
+        for (int q = 0; q < quads; q++)
+            if (org[4 * q] >= 0)
+            {
+                int u = pointNode[org[4 * q]];
+                int v = pointNode[org[4 * q + 2]];
+                targets[filled[u]++] = v;
+                targets[filled[v]++] = u;
+            }
+        for (int u = 0; u < nodesNum; u++)
+            Arrays.sort(targets, offsets[u], offsets[u + 1]);
+
+        px = py = onext = org = free = null;
+    }
+
+    /**
+     * @return true if u and v are Delaunay neighbors
+     */
+    public boolean isEdge(int u, int v)
+    {
+        return Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v) >= 0;
+    }
+
+    /**
+     * @return offsets of the Delaunay edges, i.e., Delaunay neighbors of u are getTargets()[offsets[u]..offsets[u+1])
+     */
+    public int[] getOffsets()
+    {
+        return this.offsets;
+    }
+
+    public int[] getTargets()
+    {
+        return this.targets;
+    }
+
+    /**
+     * internal method that triangulates sorted points l..r (inclusive)
+     *
+     * @return counterclockwise convex hull edge out of the leftmost point and clockwise one out of the rightmost point
+     */
+    private long triangulate(int l, int r)
+    {
+        if (r - l == 1)
+        {
+            int a = makeEdge(l, r);
+            return pair(a, a ^ 2);
+        }
+        if (r - l == 2)
+        {
+            int a = makeEdge(l, l + 1);
+            int b = makeEdge(l + 1, r);
+            splice(a ^ 2, b);
+            long turn = cross(l, l + 1, r);
+            if (turn == 0)
+                return pair(a, b ^ 2);
+            int c = connect(b, a);
+            return turn > 0 ? pair(a, b ^ 2) : pair(c ^ 2, c);
+        }
+
+        int mid = (l + r) >>> 1;
+        long left = triangulate(l, mid);
+        long right = triangulate(mid + 1, r);
+        int ldo = (int) (left >>> 32), ldi = (int) left;
+        int rdi = (int) (right >>> 32), rdo = (int) right;
+
+        //find the lower common tangent of both halves
+        while (true)
+            if (cross(org[rdi], org[ldi], dest(ldi)) > 0)
+                ldi = lnext(ldi);
+            else if (cross(org[ldi], org[rdi], dest(rdi)) < 0)
+                rdi = onext[rdi ^ 2];
+            else
+                break;
+
+        int basel = connect(rdi ^ 2, ldi);
+        if (org[ldi] == org[ldo])
+            ldo = basel ^ 2;
+        if (org[rdi] == org[rdo])
+            rdo = basel;
+
+        //zip both halves together from the bottom to the top
+        while (true)
+        {
+            int lcand = onext[basel ^ 2];
+            if (isValid(lcand, basel))
+                while (inCircle(dest(basel), org[basel], dest(lcand), dest(onext[lcand])))
+                {
+                    int t = onext[lcand];
+                    deleteEdge(lcand);
+                    lcand = t;
+                }
+            int rcand = oprev(basel);
+            if (isValid(rcand, basel))
+                while (inCircle(dest(basel), org[basel], dest(rcand), dest(oprev(rcand))))
+                {
+                    int t = oprev(rcand);
+                    deleteEdge(rcand);
+                    rcand = t;
+                }
+
+            boolean lValid = isValid(lcand, basel);
+            boolean rValid = isValid(rcand, basel);
+            if (!lValid && !rValid)
+                break;
+            if (!lValid || (rValid && inCircle(dest(lcand), org[lcand], org[rcand], dest(rcand))))
+                basel = connect(rcand, basel ^ 2);
+            else
+                basel = connect(basel ^ 2, lcand ^ 2);
+        }
+        return pair(ldo, rdo);
+    }
+
+    private static long pair(int a, int b)
+    {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    /**
+     * @return true if the candidate edge e goes above the base edge, i.e., its destination is to the right of basel
+     */
+    private boolean isValid(int e, int basel)
+    {
+        return cross(dest(e), org[basel], dest(basel)) < 0;
+    }
+
+    /**
+     * @return twice the signed area of triangle (a, b, c), positive if it is counterclockwise
+     */
+    private long cross(int a, int b, int c)
+    {
+        return (long) (px[b] - px[a]) * (py[c] - py[a]) - (long) (py[b] - py[a]) * (px[c] - px[a]);
+    }
+
+    /**
+     * @return true if d lies strictly inside the circle through a, b and c (given counterclockwise)
+     */
+    private boolean inCircle(int a, int b, int c, int d)
+    {
+        long adx = px[a] - px[d], ady = py[a] - py[d];
+        long bdx = px[b] - px[d], bdy = py[b] - py[d];
+        long cdx = px[c] - px[d], cdy = py[c] - py[d];
+        long aLift = adx * adx + ady * ady;
+        long bLift = bdx * bdx + bdy * bdy;
+        long cLift = cdx * cdx + cdy * cdy;
+        return aLift * (bdx * cdy - cdx * bdy) + bLift * (cdx * ady - adx * cdy) + cLift * (adx * bdy - bdx * ady) > 0;
+    }
+
+    private static int rot(int e)
+    {
+        return (e & ~3) | ((e + 1) & 3);
+    }
+
+    private static int invRot(int e)
+    {
+        return (e & ~3) | ((e + 3) & 3);
+    }
+
+    private int dest(int e)
+    {
+        return org[e ^ 2];
+    }
+
+    private int lnext(int e)
+    {
+        return rot(onext[invRot(e)]);
+    }
+
+    private int oprev(int e)
+    {
+        return rot(onext[rot(e)]);
+    }
+
+    private int makeEdge(int a, int b)
+    {
+        int q;
+        if (freeNum > 0)
+            q = free[--freeNum];
+        else
+        {
+            if (4 * (quads + 1) > onext.length)
+            {
+                onext = Arrays.copyOf(onext, 2 * onext.length);
+                org = Arrays.copyOf(org, 2 * org.length);
+            }
+            q = quads++;
+        }
+        int e = 4 * q;
+        onext[e] = e;
+        onext[e + 1] = e + 3;
+        onext[e + 2] = e + 2;
+        onext[e + 3] = e + 1;
+        org[e] = a;
+        org[e + 1] = -1;
+        org[e + 2] = b;
+        org[e + 3] = -1;
+        return e;
+    }
+
+    private void splice(int a, int b)
+    {
+        int alpha = rot(onext[a]);
+        int beta = rot(onext[b]);
+        int t = onext[a];
+        onext[a] = onext[b];
+        onext[b] = t;
+        t = onext[alpha];
+        onext[alpha] = onext[beta];
+        onext[beta] = t;
+    }
+
+    /**
+     * @return new edge from the destination of a to the origin of b (a's left face is split)
+     */
+    private int connect(int a, int b)
+    {
+        int e = makeEdge(dest(a), org[b]);
+        splice(e, lnext(a));
+        splice(e ^ 2, b);
+        return e;
+    }
+
+    private void deleteEdge(int e)
+    {
+        splice(e, oprev(e));
+        splice(e ^ 2, oprev(e ^ 2));
+        org[e & ~3] = org[(e & ~3) + 2] = -1;
+        if (freeNum == free.length)
+            free = Arrays.copyOf(free, 2 * freeNum);
+        free[freeNum++] = e >>> 2;
+    }
+}
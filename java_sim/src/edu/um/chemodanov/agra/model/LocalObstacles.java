@@ -0,0 +1,92 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local obstacle knowledge of nodes, i.e., ids of the obstacles whose repulsion zones contain a node
+ * (based on Equation 18 in the AGRA paper) for a given repulsive field attenuation degree.
+ * Ids known by node u are stored in ids[offsets[u]..offsets[u+1]) in ascending order.
+ * Arrays returned by the getters are shared and must not be modified
+ */
+public class LocalObstacles
+{
+    private double deg;
+    private int[] offsets;
+    private int[] ids;
+
+    /**
+     * @param nodes     - topology nodes (indexed by id), switched off nodes know no obstacles
+     * @param obstacles - obstacles (indexed by id), e.g., circumscribed obstacles
+     * @param deg       - repulsive field attenuation order degree
+     */
+    public LocalObstacles(List<Node> nodes, List<Obstacle> obstacles, double deg)
+    {
+        this.deg = deg;
+        this.offsets = new int[nodes.size() + 1];
+        int[] known = new int[Math.max(16, nodes.size())];
+        int knownNum = 0;
+        for (Node n : nodes)
+        {
+            if (n.isOn())
+                for (Obstacle h : obstacles)
+                    if (EuclDist.d(h.getX(), h.getY(), n.getX(), n.getY()) <= ((1 + 1 / deg) * h.getR() + n.getR()))
+                    {
+                        if (knownNum == known.length)
+                            known = Arrays.copyOf(known, 2 * knownNum);
+                        known[knownNum++] = h.getId();
+                    }
+            offsets[n.getId() + 1] = knownNum;
+        }
+        this.ids = Arrays.copyOf(known, knownNum);
+    }
+
+    public double getDeg()
+    {
+        return this.deg;
+    }
+
+    /**
+     * @return number of obstacles known by node u (i.e., its obstacle state size)
+     */
+    public int count(int u)
+    {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    public int[] getOffsets()
+    {
+        return this.offsets;
+    }
+
+    public int[] getIds()
+    {
+        return this.ids;
+    }
+}
@@ -25,6 +25,7 @@
 package edu.um.chemodanov.agra.model;
 
 import edu.um.chemodanov.agra.routing.BFSConstant;
+import edu.um.chemodanov.agra.util.IntHashSet;
 
 import java.util.HashSet;
 import java.util.Random;
@@ -40,8 +41,9 @@ public class Node implements BFSConstant
     private boolean isBorder = false;
     private Set<Node> neighbors; // with asymmetrical links
     private Set<Node> staticNeighbors; //for internal use by topology only
-    //this filed is used to limit graph connectivity for construction of the planarized graphs
-    private Set<Node> prohibitedNeighbors;
+    //this filed is used to limit graph connectivity for construction of the planarized graphs (ids of prohibited neighbors)
+    private IntHashSet prohibitedNeighbors;
+    private Topology topology; // topology that is notified when the radio range changes (null if none)
 
     //routing info
     private String color = WHITE;
@@ -57,7 +59,7 @@ public class Node implements BFSConstant
         this.y = y;
         this.neighbors = new HashSet<>();
         this.staticNeighbors = new HashSet<>();
-        this.prohibitedNeighbors = new HashSet<>();
+        this.prohibitedNeighbors = new IntHashSet();
         this.r = new Random().nextDouble()*4 + 1; //generate random radio range
     }
 
@@ -68,7 +70,20 @@ public class Node implements BFSConstant
 
     public double getR(){ return  this.r;}
 
-    public void setR(double r) {this.r =r;}
+    /**
+     * Sets the radio range and notifies the topology, since its local obstacle knowledge depends on ranges
+     */
+    public void setR(double r)
+    {
+        this.r = r;
+        if (topology != null)
+            topology.rangesChanged();
+    }
+
+    protected void setTopology(Topology topology)
+    {
+        this.topology = topology;
+    }
 
     public int getX()
     {
@@ -112,12 +127,12 @@ public class Node implements BFSConstant
 
     public boolean isProhibited(Node s)
     {
-        return prohibitedNeighbors.contains(s);
+        return prohibitedNeighbors.contains(s.getId());
     }
 
     public void addProhibitedNeighbor(Node s)
     {
-        prohibitedNeighbors.add(s);
+        prohibitedNeighbors.add(s.getId());
     }
 
     protected void setOff()
@@ -195,15 +210,18 @@ public class Node implements BFSConstant
         return "sensor" + id + " (" + x + "," + y + ") isOn=" + isOn;
     }
 
+    /**
+     * Node identity is its id, i.e., it is stable while the node is switched on/off and is cheap to compute
+     */
     public int hashCode()
     {
-        return this.toString().hashCode();
+        return this.id;
     }
 
     public boolean equals(Object o)
     {
-        if (o != null)
-            return this.hashCode() == o.hashCode();
+        if (o instanceof Node)
+            return this.id == ((Node) o).id;
 
         return false;
     }
@@ -27,15 +27,15 @@ package edu.um.chemodanov.agra.model;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Immutable (during routing) obstacle shape. Charges induced by packets are kept by the forwarding engines
+ */
 public class Obstacle
 {
     private int id;
     private double x;
     private double y;
-    private double qx;
-    private double qy;
     private double r;
-    private double q;
     private List<Double> xx;
     private List<Double> yy;
     private List<Double> qq;
@@ -46,9 +46,6 @@ public class Obstacle
         this.x = x;
         this.y = y;
         this.r = r;
-        this.q = 0;
-        this.qx = this.x;
-        this.qy = this.y;
         this.xx = new ArrayList<>();
         this.yy = new ArrayList<>();
         this.qq = new ArrayList<>();
@@ -91,55 +88,28 @@ public class Obstacle
             throw new RuntimeException("Unknown hole with index i=" + i);
     }
 
-    public double getQx()
-    {
-        return this.qx;
-    }
-
-    public double getQy()
-    {
-        return this.qy;
-    }
-
     public double getR()
     {
         return this.r;
     }
 
-    public double getQ()
-    {
-        return this.q;
-    }
-
-    public void setQ(double q)
-    {
-        this.q = q;
-    }
-
-    public void setQx(double qx)
-    {
-        this.qx = qx;
-    }
-
-    public void setQy(double qy)
-    {
-        this.qy = qy;
-    }
-
     public String toString()
     {
         return "hole" + id + " (" + x + "," + y + "), r=" + r;
     }
 
+    /**
+     * Obstacle identity is its id (i.e., its index in the list of obstacles it belongs to)
+     */
     public int hashCode()
     {
-        return toString().hashCode();
+        return this.id;
     }
 
     public boolean equals(Object o)
     {
-        if (o != null)
-            return this.hashCode() == o.hashCode();
+        if (o instanceof Obstacle)
+            return this.id == ((Obstacle) o).id;
         else
             return false;
     }
@@ -0,0 +1,188 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import java.util.Arrays;
+
+/**
+ * Face (half-edge) table of a planar graph for face (perimeter) routing. Every planar link k (i.e., index of
+ * PlanarGraph.getTargets()) knows the link that follows it on its face by the right-hand rule, the next link
+ * counterclockwise around its source and the line through it, so a packet walks faces with table lookups only.
+ * Faces are the cycles of the right-hand rule successors; with asymmetric links some links only lead into
+ * a face and belong to no face
+ */
+public class PlanarFaces
+{
+    public static final int NO_FACE = -1;
+
+    private int[] sources; // source node of every link
+    private int[] faceNext; // link that follows link k on its face or -1 if the packet bounces back over a link that is not planar
+    private int[] ccwNext; // next link counterclockwise around the source of link k (k itself if it is the only one)
+    private int[] face; // face id of link k or NO_FACE
+    private int[] faceOffsets; // links of face f in walk order are faceLinks[faceOffsets[f]..faceOffsets[f+1])
+    private int[] faceLinks;
+    private double[] slope; // line through link k as used by the GPSR perimeter mode (see slope and intercept methods)
+    private double[] intercept;
+
+    PlanarFaces(PlanarGraph planar, double[] x, double[] y)
+    {
+        int[] offsets = planar.getOffsets();
+        int[] targets = planar.getTargets();
+        int nodesNum = offsets.length - 1;
+        int linksNum = targets.length;
+
+        sources = new int[linksNum];
+        faceNext = new int[linksNum];
+        ccwNext = new int[linksNum];
+        slope = new double[linksNum];
+        intercept = new double[linksNum];
+        for (int u = 0; u < nodesNum; u++)
+            for (int k = offsets[u]; k < offsets[u + 1]; k++)
+            {
+                int v = targets[k];
+                sources[k] = u;
+                faceNext[k] = planar.rightHandLink(v, u);
+                int rotated = planar.counterclockwiseLink(u, x[v] - x[u], y[v] - y[u], v);
+                ccwNext[k] = rotated < 0 ? k : rotated;
+                slope[k] = slope(x[u], y[u], x[v], y[v]);
+                intercept[k] = intercept(x[u], y[u], slope[k]);
+            }
+
+        //faces are the cycles of faceNext, i.e., walk from every unvisited link until a visited one or a bounce
+        face = new int[linksNum];
+        Arrays.fill(face, NO_FACE);
+        int[] state = new int[linksNum]; // 0 - unvisited, 1 - on the current walk, 2 - done
+        int[] walk = new int[16];
+        faceOffsets = new int[16];
+        faceLinks = new int[linksNum];
+        int facesNum = 0;
+        int faceLinksNum = 0;
+        for (int k = 0; k < linksNum; k++)
+        {
+            int walkNum = 0;
+            int e = k;
+            while (e >= 0 && state[e] == 0)
+            {
+                state[e] = 1;
+                if (walkNum == walk.length)
+                    walk = Arrays.copyOf(walk, 2 * walkNum);
+                walk[walkNum++] = e;
+                e = faceNext[e];
+            }
+            if (e >= 0 && state[e] == 1) //the walk closed a new face
+            {
+                if (facesNum + 2 > faceOffsets.length)
+                    faceOffsets = Arrays.copyOf(faceOffsets, 2 * faceOffsets.length);
+                int i = walkNum - 1;
+                while (walk[i] != e)
+                    i--;
+                for (; i < walkNum; i++)
+                {
+                    face[walk[i]] = facesNum;
+                    faceLinks[faceLinksNum++] = walk[i];
+                }
+                faceOffsets[++facesNum] = faceLinksNum;
+            }
+            for (int i = 0; i < walkNum; i++)
+                state[walk[i]] = 2;
+        }
+        faceOffsets = Arrays.copyOf(faceOffsets, facesNum + 1);
+        faceLinks = Arrays.copyOf(faceLinks, faceLinksNum);
+    }
+
+    /**
+     * @return slope of the line through (x1, y1) and (x2, y2), infinite or NaN for vertical lines
+     */
+    public static double slope(double x1, double y1, double x2, double y2)
+    {
+        return (y2 - y1) / (x2 - x1);
+    }
+
+    /**
+     * @return y intercept of the line through (x1, y1) with the given slope
+     */
+    public static double intercept(double x1, double y1, double slope)
+    {
+        return y1 - slope * x1;
+    }
+
+    public int getSource(int link)
+    {
+        return this.sources[link];
+    }
+
+    /**
+     * @return link that follows the given one on its face by the right-hand rule
+     * or -1 if the packet bounces back over a link that is not planar for the target node
+     */
+    public int getFaceNext(int link)
+    {
+        return this.faceNext[link];
+    }
+
+    /**
+     * @return next link counterclockwise around the source of the given one (the link itself if it is the only one)
+     */
+    public int getCcwNext(int link)
+    {
+        return this.ccwNext[link];
+    }
+
+    /**
+     * @return face id of the link or NO_FACE if it only leads into a face
+     */
+    public int getFace(int link)
+    {
+        return this.face[link];
+    }
+
+    public int getFacesNum()
+    {
+        return this.faceOffsets.length - 1;
+    }
+
+    /**
+     * @return offsets of the face cycles, i.e., links of face f in walk order are getFaceLinks()[offsets[f]..offsets[f+1])
+     */
+    public int[] getFaceOffsets()
+    {
+        return this.faceOffsets;
+    }
+
+    public int[] getFaceLinks()
+    {
+        return this.faceLinks;
+    }
+
+    public double getSlope(int link)
+    {
+        return this.slope[link];
+    }
+
+    public double getIntercept(int link)
+    {
+        return this.intercept[link];
+    }
+}
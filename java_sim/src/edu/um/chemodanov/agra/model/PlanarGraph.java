@@ -0,0 +1,382 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Read-only compressed sparse row (CSR) planar subgraph of a topology, i.e., links that face (perimeter) routing may use.
+ * Links of node u are stored in targets[offsets[u]..offsets[u+1]) as a ring sorted counterclockwise by bearing
+ * (links in the same direction are sorted by length), so the right-hand rule is a binary search instead of a scan
+ */
+public class PlanarGraph
+{
+    private Planarization planarization;
+    private DelaunayTriangulation delaunay; // only for Delaunay based planarizations
+    private int[] offsets;
+    private int[] targets;
+    private double[] x;
+    private double[] y;
+    private PlanarFaces faces;
+
+    /**
+     * @param ct            - compact snapshot of the topology links
+     * @param nodes         - topology nodes (indexed by id)
+     * @param planarization - kind of planar graph or null to keep links that are not prohibited on nodes
+     * @param workers       - number of threads to planarize nodes concurrently
+     */
+    public PlanarGraph(final CompactTopology ct, final List<Node> nodes, final Planarization planarization, int workers)
+    {
+        this.planarization = planarization;
+        if (planarization != null && planarization.isDelaunayBased())
+            this.delaunay = new DelaunayTriangulation(nodes);
+        this.x = ct.getX();
+        this.y = ct.getY();
+        final int nodesNum = ct.getNodesNum();
+        final int[][] links = new int[nodesNum][];
+        if (workers <= 1 || nodesNum < 2)
+        {
+            planarize(ct, nodes, links, 0, nodesNum);
+            sortByBearing(links, 0, nodesNum);
+        }
+        else
+        {
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try
+            {
+                int ranges = Math.min(nodesNum, 4 * workers);
+                List<Future<?>> futures = new ArrayList<>(ranges);
+                for (int k = 0; k < ranges; k++)
+                {
+                    final int from = (int) ((long) k * nodesNum / ranges);
+                    final int to = (int) ((long) (k + 1) * nodesNum / ranges);
+                    futures.add(pool.submit(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            planarize(ct, nodes, links, from, to);
+                            sortByBearing(links, from, to);
+                        }
+                    }));
+                }
+                for (Future<?> f : futures)
+                    f.get();
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Planarization was interrupted", e);
+            } catch (ExecutionException e)
+            {
+                throw new RuntimeException("Planarization failed", e.getCause());
+            } finally
+            {
+                pool.shutdownNow();
+            }
+        }
+
+        this.offsets = new int[nodesNum + 1];
+        for (int u = 0; u < nodesNum; u++)
+            offsets[u + 1] = offsets[u] + links[u].length;
+        this.targets = new int[offsets[nodesNum]];
+        for (int u = 0; u < nodesNum; u++)
+            System.arraycopy(links[u], 0, targets, offsets[u], links[u].length);
+        this.faces = new PlanarFaces(this, x, y);
+    }
+
+    /**
+     * internal method that finds planar links of nodes with ids from..to-1 (exclusive)
+     */
+    private void planarize(CompactTopology ct, List<Node> nodes, int[][] links, int from, int to)
+    {
+        int[] neighborOffsets = ct.getNeighborOffsets();
+        int[] neighborTargets = ct.getNeighborTargets();
+        int[] neighborEnds = ct.getNeighborEnds();
+        if (planarization != null && planarization.isDelaunayBased())
+        {
+            filterDelaunay(nodes, neighborOffsets, neighborEnds, neighborTargets, links, from, to);
+            return;
+        }
+        for (int u = from; u < to; u++)
+        {
+            int first = neighborOffsets[u];
+            int degree = neighborEnds[u] - first;
+            Node n = nodes.get(u);
+            int[] allowed = new int[degree];
+            int allowedNum = 0;
+
+            if (planarization == null)
+            {
+                for (int k = first; k < first + degree; k++)
+                    if (!n.isProhibited(nodes.get(neighborTargets[k])))
+                        allowed[allowedNum++] = neighborTargets[k];
+                links[u] = Arrays.copyOf(allowed, allowedNum);
+                continue;
+            }
+
+            //sort neighbors by distance, so only neighbors closer to u than v are checked as witnesses for link (u,v)
+            long[] byDist = new long[degree];
+            for (int k = 0; k < degree; k++)
+                byDist[k] = (sqDist(n, nodes.get(neighborTargets[first + k])) << 32) | k;
+            Arrays.sort(byDist);
+
+            for (int k = first; k < first + degree; k++)
+            {
+                Node v = nodes.get(neighborTargets[k]);
+                long uv = sqDist(n, v);
+                boolean prohibited = false;
+                for (int i = 0; i < degree && (byDist[i] >>> 32) < uv && !prohibited; i++)
+                {
+                    Node w = nodes.get(neighborTargets[first + (int) byDist[i]]);
+                    if (planarization == Planarization.RNG)
+                        prohibited = EuclDist.d(n, v) > Math.max(EuclDist.d(n, w), EuclDist.d(v, w));
+                    else
+                        prohibited = (byDist[i] >>> 32) + sqDist(v, w) <= uv;
+                }
+                if (!prohibited)
+                    allowed[allowedNum++] = v.getId();
+            }
+            links[u] = Arrays.copyOf(allowed, allowedNum);
+        }
+    }
+
+    /**
+     * internal method that keeps links of nodes with ids from..to-1 (exclusive) which are edges of the filtered Delaunay triangulation.
+     * Gabriel witnesses of a Delaunay edge are always Delaunay neighbors of its ends, while RNG witnesses of (u,v) are searched
+     * among the nodes reachable from u over Delaunay edges within the open disk of radius |uv| around u (such nodes are connected)
+     */
+    private void filterDelaunay(List<Node> nodes, int[] neighborOffsets, int[] neighborEnds, int[] neighborTargets, int[][] links, int from, int to)
+    {
+        int[] dtOffsets = delaunay.getOffsets();
+        int[] dtTargets = delaunay.getTargets();
+        int[] visited = new int[nodes.size()]; // epoch stamps of the RNG witness search
+        int epoch = 0;
+        int[] queue = new int[16];
+        for (int u = from; u < to; u++)
+        {
+            int first = neighborOffsets[u];
+            int degree = neighborEnds[u] - first;
+            Node n = nodes.get(u);
+            int[] allowed = new int[degree];
+            int allowedNum = 0;
+            for (int k = first; k < first + degree; k++)
+            {
+                int v = neighborTargets[k];
+                if (!delaunay.isEdge(u, v))
+                    continue;
+                Node nv = nodes.get(v);
+                long uv = sqDist(n, nv);
+                boolean prohibited = false;
+                if (planarization == Planarization.DELAUNAY_GABRIEL)
+                {
+                    for (int i = dtOffsets[u]; i < dtOffsets[u + 1] && !prohibited; i++)
+                        prohibited = dtTargets[i] != v && sqDist(n, nodes.get(dtTargets[i])) + sqDist(nv, nodes.get(dtTargets[i])) <= uv;
+                    for (int i = dtOffsets[v]; i < dtOffsets[v + 1] && !prohibited; i++)
+                        prohibited = dtTargets[i] != u && sqDist(n, nodes.get(dtTargets[i])) + sqDist(nv, nodes.get(dtTargets[i])) <= uv;
+                } else if (planarization == Planarization.DELAUNAY_RNG)
+                {
+                    epoch++;
+                    visited[u] = epoch;
+                    queue[0] = u;
+                    for (int head = 0, tail = 1; head < tail && !prohibited; head++)
+                        for (int i = dtOffsets[queue[head]]; i < dtOffsets[queue[head] + 1] && !prohibited; i++)
+                        {
+                            int w = dtTargets[i];
+                            Node nw = nodes.get(w);
+                            if (w == v || visited[w] == epoch || sqDist(n, nw) >= uv)
+                                continue;
+                            visited[w] = epoch;
+                            prohibited = sqDist(nv, nw) < uv;
+                            if (tail == queue.length)
+                                queue = Arrays.copyOf(queue, 2 * tail);
+                            queue[tail++] = w;
+                        }
+                }
+                if (!prohibited)
+                    allowed[allowedNum++] = v;
+            }
+            links[u] = Arrays.copyOf(allowed, allowedNum);
+        }
+    }
+
+    /**
+     * internal method that sorts links of nodes with ids from..to-1 (exclusive) into counterclockwise rings
+     */
+    private void sortByBearing(int[][] links, int from, int to)
+    {
+        for (int u = from; u < to; u++)
+        {
+            int[] ring = links[u];
+            //planar degree is small, so insertion sort is enough
+            for (int i = 1; i < ring.length; i++)
+            {
+                int v = ring[i];
+                double vx = x[v] - x[u], vy = y[v] - y[u];
+                int j = i - 1;
+                while (j >= 0)
+                {
+                    double wx = x[ring[j]] - x[u], wy = y[ring[j]] - y[u];
+                    int c = compareBearing(wx, wy, vx, vy);
+                    if (c < 0 || (c == 0 && wx * wx + wy * wy <= vx * vx + vy * vy))
+                        break;
+                    ring[j + 1] = ring[j];
+                    j--;
+                }
+                ring[j + 1] = v;
+            }
+        }
+    }
+
+    /**
+     * Compares bearings (counterclockwise angles from the x axis in [0, 2pi)) of two directions. It is exact,
+     * since coordinates are integers and only signs of their products are used
+     *
+     * @return negative, zero or positive if bearing of (ax, ay) is less than, equal to or greater than bearing of (bx, by)
+     */
+    private static int compareBearing(double ax, double ay, double bx, double by)
+    {
+        int aHalf = ay > 0 || (ay == 0 && ax > 0) ? 0 : 1;
+        int bHalf = by > 0 || (by == 0 && bx > 0) ? 0 : 1;
+        if (aHalf != bHalf)
+            return aHalf - bHalf;
+        double cross = ax * by - ay * bx;
+        return cross > 0 ? -1 : (cross < 0 ? 1 : 0);
+    }
+
+    /**
+     * Right-hand rule lookup, i.e., the first planar link of u met when sweeping counterclockwise from direction (dx, dy).
+     * A link exactly in that direction is met first and of links in the same direction the shortest one.
+     * This differs from the original acos based sweep only for collinear neighbors: there the cosine of a neighbor
+     * in the start direction or opposite to it may be rounded beyond [-1, 1], so acos was NaN and the neighbor was
+     * never picked, and ties went to the first neighbor in set order
+     *
+     * @param u        - node id
+     * @param dx       - x of the sweep start direction (e.g., towards the destination or the previous hop)
+     * @param dy       - y of the sweep start direction
+     * @param excluded - id of a neighbor to skip (e.g., the previous hop) or -1
+     * @return index of the link in getTargets() or -1 if u has no (other) planar neighbors
+     */
+    public int counterclockwiseLink(int u, double dx, double dy, int excluded)
+    {
+        int from = offsets[u];
+        int degree = offsets[u + 1] - from;
+
+        //binary search for the first link with bearing not less than the sweep start
+        int lo = from, hi = from + degree;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (compareBearing(x[targets[mid]] - x[u], y[targets[mid]] - y[u], dx, dy) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        for (int i = 0; i < degree; i++)
+        {
+            int k = from + (lo - from + i) % degree;
+            if (targets[k] != excluded)
+                return k;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of planar link (u,v) in getTargets() or -1 if v is not a planar neighbor of u
+     */
+    public int getLink(int u, int v)
+    {
+        for (int k = offsets[u]; k < offsets[u + 1]; k++)
+            if (targets[k] == v)
+                return k;
+        return -1;
+    }
+
+    /**
+     * Right-hand rule for a packet that came to v from u, i.e., the first planar link of v counterclockwise from (v,u)
+     * or link (v,u) itself if v has no other planar neighbors
+     *
+     * @return index of the link in getTargets() or -1 if the packet has to bounce back to u over a link that is not planar for v
+     */
+    public int rightHandLink(int v, int u)
+    {
+        int k = counterclockwiseLink(v, x[u] - x[v], y[u] - y[v], u);
+        return k < 0 ? getLink(v, u) : k;
+    }
+
+    /**
+     * @return squared Euclidean distance between two nodes (exact, since coordinates are integers)
+     */
+    private static long sqDist(Node a, Node b)
+    {
+        long dx = a.getX() - b.getX();
+        long dy = a.getY() - b.getY();
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return kind of the planar graph or null if it was built from prohibited neighbors of nodes
+     */
+    public Planarization getPlanarization()
+    {
+        return this.planarization;
+    }
+
+    /**
+     * @return Delaunay triangulation the planar graph was filtered from or null if it is not Delaunay based
+     */
+    public DelaunayTriangulation getDelaunay()
+    {
+        return this.delaunay;
+    }
+
+    /**
+     * @return face (half-edge) table of the planar links
+     */
+    public PlanarFaces getFaces()
+    {
+        return this.faces;
+    }
+
+    /**
+     * @return offsets of the planar links, i.e., planar neighbors of u are getTargets()[offsets[u]..offsets[u+1])
+     */
+    public int[] getOffsets()
+    {
+        return this.offsets;
+    }
+
+    public int[] getTargets()
+    {
+        return this.targets;
+    }
+}
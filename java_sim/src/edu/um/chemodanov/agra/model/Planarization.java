@@ -0,0 +1,70 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+/**
+ * Kinds of planar subgraphs used by face (perimeter) routing
+ */
+public enum Planarization
+{
+    /**
+     * Relative neighborhood graph: link (u,v) is removed if some neighbor w of u is closer to both u and v than they are to each other
+     */
+    RNG(false),
+    /**
+     * Gabriel graph: link (u,v) is removed if some neighbor w of u lies in the closed disk with diameter uv
+     */
+    GABRIEL(false),
+    /**
+     * Restricted Delaunay graph: links that are edges of the Delaunay triangulation of all switched on nodes
+     */
+    RESTRICTED_DELAUNAY(true),
+    /**
+     * Relative neighborhood graph filtered from the Delaunay triangulation, i.e., any switched on node (not only a neighbor of u)
+     * closer to both u and v than they are to each other removes link (u,v)
+     */
+    DELAUNAY_RNG(true),
+    /**
+     * Gabriel graph filtered from the Delaunay triangulation, i.e., any switched on node (not only a neighbor of u)
+     * in the closed disk with diameter uv removes link (u,v)
+     */
+    DELAUNAY_GABRIEL(true);
+
+    private boolean delaunay;
+
+    Planarization(boolean delaunay)
+    {
+        this.delaunay = delaunay;
+    }
+
+    /**
+     * @return true if links are filtered from the Delaunay triangulation (near-linear construction for large deployments)
+     * instead of checking neighbors of every node (quadratic in node degree)
+     */
+    public boolean isDelaunayBased()
+    {
+        return this.delaunay;
+    }
+}
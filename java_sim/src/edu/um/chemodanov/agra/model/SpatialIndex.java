@@ -0,0 +1,133 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Uniform grid (bucketed) spatial index over a fixed set of nodes.
+ * Nodes are hashed into square cells, so a range query only inspects the cells overlapping the query circle
+ */
+public class SpatialIndex
+{
+    private double cellSize;
+    private double minX;
+    private double minY;
+    private int cols;
+    private int rows;
+    private int[] cellStart; // cell c holds cellNodes[cellStart[c]..cellStart[c+1])
+    private int[] cellNodes; // node ids
+    private int[] nodeX;
+    private int[] nodeY;
+
+    /**
+     * @param nodes    - nodes to index (their coordinates must not change while the index is in use)
+     * @param cellSize - cell size, e.g., max radio range for neighbor discovery
+     */
+    public SpatialIndex(Collection<Node> nodes, double cellSize)
+    {
+        int n = nodes.size();
+        int maxId = -1;
+        double maxX = 0, maxY = 0;
+        minX = Double.MAX_VALUE;
+        minY = Double.MAX_VALUE;
+        for (Node node : nodes)
+        {
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
+            maxId = Math.max(maxId, node.getId());
+        }
+        if (n == 0)
+            minX = minY = 0;
+
+        //keep the number of cells linear in the number of nodes (too small cells only waste memory)
+        double extent = Math.max(maxX - minX, maxY - minY) + 1;
+        this.cellSize = Math.max(cellSize, extent / Math.max(1, Math.sqrt(4.0 * n)));
+        this.cols = (int) ((maxX - minX) / this.cellSize) + 1;
+        this.rows = (int) ((maxY - minY) / this.cellSize) + 1;
+
+        this.nodeX = new int[maxId + 1];
+        this.nodeY = new int[maxId + 1];
+        this.cellStart = new int[cols * rows + 1];
+        this.cellNodes = new int[n];
+        for (Node node : nodes)
+        {
+            nodeX[node.getId()] = node.getX();
+            nodeY[node.getId()] = node.getY();
+            cellStart[cellOf(node.getX(), node.getY()) + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++)
+            cellStart[c + 1] += cellStart[c];
+        int[] fill = Arrays.copyOf(cellStart, cols * rows);
+        for (Node node : nodes)
+            cellNodes[fill[cellOf(node.getX(), node.getY())]++] = node.getId();
+    }
+
+    /**
+     * Finds all indexed nodes within the given Euclidean distance (inclusive) from a point
+     *
+     * @param x - x coordinate of the query point
+     * @param y - y coordinate of the query point
+     * @param r - query radius
+     * @return ids of the found nodes in ascending order
+     */
+    public int[] withinDistance(double x, double y, double r)
+    {
+        int[] found = new int[16];
+        int size = 0;
+        int fromCol = Math.max(0, (int) Math.floor((x - r - minX) / cellSize));
+        int toCol = Math.min(cols - 1, (int) Math.floor((x + r - minX) / cellSize));
+        int fromRow = Math.max(0, (int) Math.floor((y - r - minY) / cellSize));
+        int toRow = Math.min(rows - 1, (int) Math.floor((y + r - minY) / cellSize));
+        for (int row = fromRow; row <= toRow; row++)
+            for (int col = fromCol; col <= toCol; col++)
+            {
+                int c = row * cols + col;
+                for (int k = cellStart[c]; k < cellStart[c + 1]; k++)
+                {
+                    int id = cellNodes[k];
+                    if (EuclDist.d(x, y, nodeX[id], nodeY[id]) <= r)
+                    {
+                        if (size == found.length)
+                            found = Arrays.copyOf(found, 2 * size);
+                        found[size++] = id;
+                    }
+                }
+            }
+        found = Arrays.copyOf(found, size);
+        Arrays.sort(found);
+        return found;
+    }
+
+    private int cellOf(int x, int y)
+    {
+        return (int) ((y - minY) / cellSize) * cols + (int) ((x - minX) / cellSize);
+    }
+}
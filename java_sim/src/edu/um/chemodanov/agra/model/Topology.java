@@ -26,6 +26,8 @@ package edu.um.chemodanov.agra.model;
 
 import edu.um.chemodanov.agra.routing.BFSConstant;
 import edu.um.chemodanov.agra.util.EuclDist;
+import edu.um.chemodanov.agra.util.IntHashSet;
+import edu.um.chemodanov.agra.util.UnionFind;
 
 import java.util.*;
 
@@ -38,17 +40,33 @@ public class Topology implements BFSConstant {
     private Set<Node> switchedOffNodes;
     private List<Obstacle> circumscribedObstacles; // list of circumscribed circles for complex obstacles (shape approximation)
     private Random rand = new Random();
+    private CompactTopology compactTopology; // lazily built CSR snapshot of the current links
+    private Planarization planarization; // kind of planar graph for face routing (null means prohibited neighbors of nodes)
+    private PlanarGraph planarGraph; // lazily built planar graph of the current links
+    private int workers = 1; // number of threads to build derived graphs (e.g., planar graph)
+    private Map<Long, LocalObstacles> localObstacles = new HashMap<>(); // lazily built local obstacle knowledge by bits of attenuation degree
+    private double neighborRange = Double.POSITIVE_INFINITY; // max link length set by limitNeighborRange
 
     public Topology(int size, int nodesNum) {
+        this(size, nodesNum, new Random());
+    }
+
+    /**
+     * @param size     - area size, i.e., nodes are placed at random integer points of [0, size] x [0, size]
+     * @param nodesNum - number of nodes
+     * @param rand     - random generator used for node placement, asymmetrical links and obstacles (e.g., seeded to reproduce a trial)
+     */
+    public Topology(int size, int nodesNum, Random rand) {
         this.size = size;
         this.nodesNum = nodesNum;
         this.nodes = new ArrayList<>(nodesNum);
         this.switchedOffNodes = new HashSet<>();
-        Random r = new Random();
+        this.rand = rand;
 
         for (int i = 0; i < nodesNum; i++) {
-            Node n = new Node(i, r.nextInt(size + 1), r.nextInt(size + 1));
+            Node n = new Node(i, rand.nextInt(size + 1), rand.nextInt(size + 1));
             n.setR(0.1 * size);
+            n.setTopology(this);
             this.nodes.add(n);
         }
 
@@ -64,6 +82,7 @@ public class Topology implements BFSConstant {
             for (int j = 1; j <= size; j++) {
                 Node n = new Node(nodes.size(), i, j);
                 n.setR(0.1 * size);
+                n.setTopology(this);
                 this.nodes.add(n);
             }
 
@@ -72,6 +91,15 @@ public class Topology implements BFSConstant {
         this.circumscribedObstacles = new ArrayList<>();
     }
 
+    /**
+     * @param size - grid size, i.e., size by size nodes are placed
+     * @param rand - random generator used for asymmetrical links and obstacles (e.g., seeded to reproduce a trial)
+     */
+    public Topology(int size, Random rand) {
+        this(size);
+        this.rand = rand;
+    }
+
     public int getGridSize() {
         return this.size;
     }
@@ -88,6 +116,60 @@ public class Topology implements BFSConstant {
         return this.obstacles;
     }
 
+    /**
+     * @return compact (CSR) snapshot of the current links, rebuilt on first use after they have been changed
+     */
+    public synchronized CompactTopology getCompactTopology() {
+        if (compactTopology == null)
+            compactTopology = new CompactTopology(this, neighborRange);
+        return compactTopology;
+    }
+
+    /**
+     * Method to notify the topology that node links were modified outside of it
+     * (e.g., neighbors were removed or prohibited to build a planarized graph)
+     */
+    public synchronized void neighborsChanged() {
+        compactTopology = null;
+        planarGraph = null;
+        localObstacles.clear();
+    }
+
+    /**
+     * Method that nodes call when their radio ranges change (ranges define local obstacle knowledge)
+     */
+    synchronized void rangesChanged() {
+        localObstacles.clear();
+    }
+
+    /**
+     * @param workers - number of threads to build derived graphs, e.g., planar graph (1 builds them serially)
+     */
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Method to build a planar graph for face (perimeter) routing. It is rebuilt automatically on first use
+     * after links or node states have changed
+     *
+     * @param planarization - kind of planar graph (null to use prohibited neighbors set on nodes)
+     */
+    public synchronized void planarize(Planarization planarization) {
+        this.planarization = planarization;
+        this.planarGraph = null;
+        getPlanarGraph();
+    }
+
+    /**
+     * @return planar graph of the current links
+     */
+    public synchronized PlanarGraph getPlanarGraph() {
+        if (planarGraph == null)
+            planarGraph = new PlanarGraph(getCompactTopology(), nodes, planarization, workers);
+        return planarGraph;
+    }
+
     /**
      * Method to generate several circular obstacles that can overlap and create obstacles of complex concave shapes
      *
@@ -96,7 +178,7 @@ public class Topology implements BFSConstant {
      * @param maxR         - max obstacle radius
      */
     public void generateObstacles(int numObstacles, double minR, double maxR) {
-        Random r = new Random();
+        Random r = rand;
         int maxK = 100 * numObstacles;
         int k = 0;
         while (obstacles.size() != numObstacles && k < maxK) {
@@ -127,21 +209,52 @@ public class Topology implements BFSConstant {
     }
 
     private void downNodesWithinObstacle() {
-        for (Node n : nodes)
-            for (Obstacle o : obstacles)
-                if (EuclDist.d(n.getX(), n.getY(), o.getX(), o.getY()) <= o.getR()) {
-                    n.setOff();
-                    switchedOffNodes.add(n);
-                }
+        double maxR = 0;
+        for (Obstacle o : obstacles)
+            maxR = Math.max(maxR, o.getR());
+        SpatialIndex index = new SpatialIndex(nodes, maxR);
+        for (Obstacle o : obstacles)
+            for (int id : index.withinDistance(o.getX(), o.getY(), o.getR())) {
+                Node n = nodes.get(id);
+                n.setOff();
+                switchedOffNodes.add(n);
+            }
+        neighborsChanged();
     }
 
     public void reInitializeNeighbors() {
+        //bucket switched on nodes by the max radio range, so only adjacent cells have to be checked
+        List<Node> onNodes = new ArrayList<>(nodes.size());
+        double maxR = 0;
         for (Node n : nodes)
             if (n.isOn()) {
-                List<Set<Node>> neighborsList = getNeighbors(n);
-                n.setStaticNeighbors(neighborsList.get(0));
-                n.setNeighbors(neighborsList.get(1));
+                onNodes.add(n);
+                maxR = Math.max(maxR, n.getR());
             }
+        SpatialIndex index = new SpatialIndex(onNodes, maxR);
+
+        for (Node n : onNodes) {
+            List<Set<Node>> neighborsList = getNeighbors(n, index);
+            n.setStaticNeighbors(neighborsList.get(0));
+            n.setNeighbors(neighborsList.get(1));
+        }
+        neighborRange = Double.POSITIVE_INFINITY;
+        neighborsChanged();
+    }
+
+    /**
+     * Method to shrink radio range of all nodes, i.e., to unlink neighbors that are further than the given range.
+     * Node neighbor sets keep the links initialized by reInitializeNeighbors, while the compact topology only shortens
+     * the linked prefixes of its distance-sorted neighbors, so it and local obstacle knowledge stay valid
+     * (the planar graph is rebuilt on first use as its links depend on the current ones)
+     *
+     * @param range - max link length (links initialized by reInitializeNeighbors can only be shrunk)
+     */
+    public synchronized void limitNeighborRange(double range) {
+        neighborRange = Math.min(neighborRange, range);
+        if (compactTopology != null)
+            compactTopology.limitNeighborRange(neighborRange);
+        planarGraph = null;
     }
 
     public void clearAllObstacles() {
@@ -155,13 +268,14 @@ public class Topology implements BFSConstant {
         reInitializeNeighbors();
     }
 
-    private List<Set<Node>> getNeighbors(Node src) {
+    private List<Set<Node>> getNeighbors(Node src, SpatialIndex onNodesIndex) {
         Set<Node> staticNeighbors = new HashSet<>();
         Set<Node> neighbors = new HashSet<>();
 
-        for (Node n : nodes)
-            if (!n.equals(src) && n.isOn()
-                    && EuclDist.d(src.getX(), src.getY(), n.getX(), n.getY()) <= src.getR()) {
+        //candidates come in ascending id order, i.e., in the same order as they are stored in nodes
+        for (int id : onNodesIndex.withinDistance(src.getX(), src.getY(), src.getR()))
+            if (id != src.getId()) {
+                Node n = nodes.get(id);
                 staticNeighbors.add(n);
                 if (rand.nextDouble() <= pr)
                     neighbors.add(n);
@@ -173,6 +287,24 @@ public class Topology implements BFSConstant {
         return neighborsList;
     }
 
+    /**
+     * Local obstacle knowledge of nodes (i.e., circumscribed obstacles whose repulsion zones contain a node).
+     * It is built once per degree (keyed by its exact bits) and dropped when circumscribed obstacles, links or radio
+     * ranges change
+     *
+     * @param deg - repulsive field attenuation order degree
+     * @return local obstacles of all nodes
+     */
+    public synchronized LocalObstacles getLocalObstacles(double deg) {
+        long key = Double.doubleToLongBits(deg);
+        LocalObstacles local = localObstacles.get(key);
+        if (local == null) {
+            local = new LocalObstacles(nodes, circumscribedObstacles, deg);
+            localObstacles.put(key, local);
+        }
+        return local;
+    }
+
     /**
      * @return list of obstacles of approximated shapes (using Equations 11 and 12 in AGRA paper)
      */
@@ -185,6 +317,9 @@ public class Topology implements BFSConstant {
      * Using Equations 11 and 12 in AGRA paper
      */
     public void initializeCircumscribedObstacles() {
+        synchronized (this) {
+            localObstacles.clear();
+        }
         circumscribedObstacles = new ArrayList<>();
         double borderR = 1;
         List<Set<Node>> connectedNodes = findBorderNodes(borderR);
@@ -205,93 +340,62 @@ public class Topology implements BFSConstant {
     }
 
     private List<Set<Node>> findBorderNodes(double borderR) {
-        Map<Node, Set<Node>> neighbors = new HashMap<>();
-
-        //estimate switched off neighbors
+        //label connected components of switched off nodes (neighbors are within distance 1)
+        SpatialIndex offIndex = new SpatialIndex(switchedOffNodes, 1);
+        UnionFind components = new UnionFind(nodes.size());
         for (Node n : switchedOffNodes)
-            for (Node offS : switchedOffNodes)
-                if (EuclDist.d(n.getX(), n.getY(), offS.getX(), offS.getY()) <= 1 && !n.equals(offS)) {
-                    if (neighbors.containsKey(n))
-                        neighbors.get(n).add(offS);
-                    else {
-                        Set<Node> sNeighbors = new HashSet<>();
-                        sNeighbors.add(offS);
-                        neighbors.put(n, sNeighbors);
-                    }
-                }
+            for (int id : offIndex.withinDistance(n.getX(), n.getY(), 1))
+                if (id > n.getId())
+                    components.union(n.getId(), id);
 
-        //detecting connected components
-        estimateOffComponents(switchedOffNodes, neighbors);
-        Map<Integer, Set<Node>> connectedOffNodes = new HashMap<>();
+        //components are numbered in the order of their first nodes
+        int[] label = new int[nodes.size()]; // component of a root, 0 if not numbered yet
+        List<Set<Node>> connectedOffNodes = new ArrayList<>();
         for (Node n : switchedOffNodes) {
-            int c = n.getComponent();
-            if (connectedOffNodes.containsKey(c))
-                connectedOffNodes.get(c).add(n);
-            else {
-                Set<Node> interConnected = new HashSet<>();
-                interConnected.add(n);
-                connectedOffNodes.put(c, interConnected);
+            int root = components.find(n.getId());
+            if (label[root] == 0) {
+                connectedOffNodes.add(new HashSet<Node>());
+                label[root] = connectedOffNodes.size();
             }
+            n.setComponent(label[root]);
+            connectedOffNodes.get(label[root] - 1).add(n);
         }
 
         //find border nodes for connected components
+        List<Node> onNodes = new ArrayList<>(nodes.size());
+        for (Node n : nodes)
+            if (n.isOn())
+                onNodes.add(n);
+        SpatialIndex onIndex = new SpatialIndex(onNodes, borderR);
         List<Set<Node>> connectedNodes = new ArrayList<>(connectedOffNodes.size());
-        for (Set<Node> offNodes : connectedOffNodes.values()) {
+        for (Set<Node> offNodes : connectedOffNodes) {
             Set<Node> borderNodes = new HashSet<>();
-            for (Node n : nodes)
-                if (n.isOn())
-                    for (Node offS : offNodes)
-                        if (EuclDist.d(n.getX(), n.getY(), offS.getX(), offS.getY()) <= borderR) {
-                            borderNodes.add(n);
-                            n.setBorder(true);
-                        }
+            for (Node offS : offNodes)
+                for (int id : onIndex.withinDistance(offS.getX(), offS.getY(), borderR)) {
+                    Node n = nodes.get(id);
+                    borderNodes.add(n);
+                    n.setBorder(true);
+                }
             connectedNodes.add(borderNodes);
         }
 
         return connectedNodes;
     }
 
-    private void estimateOffComponents(Set<Node> offNodes, Map<Node, Set<Node>> neighbors) {
-        for (Node n : offNodes) {
-            n.setColor(WHITE);
-            n.setComponent(0);
-        }
-        int comp = 0;
-        for (Node n : offNodes)
-            if (n.getColor().equals(WHITE)) {
-                comp += 1;
-                findOffComponentWithBFS(n, comp, neighbors);
-            }
-    }
-
-    private void findOffComponentWithBFS(Node src, int comp, Map<Node, Set<Node>> neighbors) {
-        Queue<Node> q = new LinkedList<>();
-        src.setColor(GRAY);
-        q.add(src);
-        while (!q.isEmpty()) {
-            Node n = q.poll();
-            n.setColor(BLACK);
-            n.setComponent(comp); //set a component
-            for (Node neighbor : neighbors.get(n))
-                if (neighbor.getColor().equals(WHITE)) {
-                    neighbor.setColor(GRAY);
-                    neighbor.setPredecessor(n.getId());
-                    neighbor.setDist(n.getDist() + 1);
-                    q.add(neighbor);
-                }
-        }
-    }
-
     private void estimateLoopsDistWithBFS(Set<Node> connectedBorderNodes) {
+        IntHashSet borderIds = new IntHashSet(connectedBorderNodes.size());
+        Node src = null; // BFS starts from the border node with the smallest id, so it does not depend on the set order
         for (Node n : connectedBorderNodes) {
             n.setColor(WHITE);
             n.setPredecessor(NIL);
             n.setLoop(NIL);
             n.setDist(0);
+            borderIds.add(n.getId());
+            if (src == null || n.getId() < src.getId())
+                src = n;
         }
 
-        if (!connectedBorderNodes.isEmpty()) {
-            Node src = connectedBorderNodes.iterator().next();
+        if (src != null) {
 
             Queue<Node> q = new LinkedList<>();
             src.setColor(GRAY);
@@ -301,7 +405,7 @@ public class Topology implements BFSConstant {
                 Node n = q.poll();
                 n.setColor(BLACK);
                 for (Node neighbor : n.getStaticNeighbors())
-                    if (connectedBorderNodes.contains(neighbor))
+                    if (borderIds.contains(neighbor.getId()))
                         if (neighbor.getColor().equals(WHITE)) {
                             neighbor.setColor(GRAY);
                             neighbor.setPredecessor(n.getId());
@@ -24,13 +24,27 @@
 
 package edu.um.chemodanov.agra.routing;
 
+import edu.um.chemodanov.agra.model.CompactTopology;
 import edu.um.chemodanov.agra.model.Node;
 import edu.um.chemodanov.agra.model.Topology;
 
 import java.util.*;
 
+/**
+ * Breadth first search over the CSR snapshot of a topology.
+ * Search state (predecessors, visited marks and queue) is kept in arrays that are reused by subsequent queries:
+ * a node is visited in the current query iff its stamp equals the current epoch, so nothing is reset per query.
+ * Hence, an instance must not be shared by concurrent threads (use one instance per thread instead)
+ */
 public class BFS implements BFSConstant
 {
+    private static final int[] NO_PATH = new int[0];
+
+    private int[] predecessor = NO_PATH;
+    private int[] visited = NO_PATH; // epoch of the last query that visited a node
+    private int[] queue = NO_PATH;
+    private int epoch = 0;
+
     /**
      * This method is a common shortest path algorithm (for min number of hops) that relies on global topo knowledge
      * We use it as a baseline for the geographic routing evaluation
@@ -42,55 +56,87 @@ public class BFS implements BFSConstant
     public List<Node> breadthFirstSearch(int src, int dst, Topology t)
     {
         List<Node> nodes = t.getNodes();
-        for (Node n : nodes)
-        {
-            n.setColor(WHITE);
-            n.setPredecessor(NIL);
-        }
+        int[] ids = shortestPath(src, dst, t);
+        List<Node> path = new ArrayList<>(ids.length);
+        for (int id : ids)
+            path.add(nodes.get(id));
+        return path;
+    }
+
+    /**
+     * Same as breadthFirstSearch, but works over node ids only
+     * @param src - source node id
+     * @param dst - destination node id
+     * @param t - network topology
+     * @return ids of the shortest path nodes from src to dst or empty array if dst is unreachable
+     */
+    public int[] shortestPath(int src, int dst, Topology t)
+    {
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        int stamp = nextEpoch(ct.getNodesNum());
+        int[] predecessor = this.predecessor;
+        int[] visited = this.visited;
 
-        Queue<Node> q = new LinkedList<Node>();
-        nodes.get(src).setColor(GRAY);
-        q.add(nodes.get(src));
+        //array-backed queue (every node is enqueued at most once)
+        int[] q = this.queue;
+        int head = 0, tail = 0;
+        visited[src] = stamp;
+        predecessor[src] = NIL;
+        q[tail++] = src;
         bfs:
         {
-            while (!q.isEmpty())
+            while (head < tail)
             {
-                Node n = q.poll();
-                n.setColor(BLACK);
+                int n = q[head++];
 
-                for (Node neighbor : n.getNeighbors())
+                for (int k = offsets[n]; k < ends[n]; k++)
                 {
-                    if (neighbor.getColor().equals(WHITE))
+                    int neighbor = targets[k];
+                    if (visited[neighbor] != stamp)
                     {
-                        neighbor.setColor(GRAY);
-                        neighbor.setPredecessor(n.getId());
-                        q.add(neighbor);
+                        visited[neighbor] = stamp;
+                        predecessor[neighbor] = n;
+                        q[tail++] = neighbor;
                     }
-                    if (neighbor.getId() == dst)
+                    if (neighbor == dst)
                         break bfs;
                 }
             }
         }
 
-        List<Node> path = new ArrayList<>();
-        if (nodes.get(dst).getPredecessor() >= 0)
-        {
-            path.add(nodes.get(dst));
-            int predecessor = nodes.get(dst).getPredecessor();
+        if (visited[dst] != stamp || predecessor[dst] == NIL)
+            return NO_PATH;
+        int length = 1;
+        for (int p = dst; p != src; p = predecessor[p])
+            length++;
+        int[] path = new int[length];
+        for (int p = dst; length > 0; p = predecessor[p])
+            path[--length] = p;
+        return path;
+    }
 
-            while (predecessor != src &&
-                    predecessor >= 0)
-            {
-                path.add(nodes.get(predecessor));
-                predecessor = path.get(path.size() - 1).getPredecessor();
-            }
+    /**
+     * internal method that starts a new query, i.e., (re)allocates the search arrays if needed and advances the epoch
+     * @param nodesNum - number of nodes in the topology
+     * @return stamp of visited nodes in the new query
+     */
+    private int nextEpoch(int nodesNum)
+    {
+        if (visited.length != nodesNum)
+        {
+            predecessor = new int[nodesNum];
+            visited = new int[nodesNum];
+            queue = new int[nodesNum];
+            epoch = 0;
         }
-        if (!path.isEmpty())
+        if (epoch == Integer.MAX_VALUE)
         {
-            path.add(nodes.get(src));
-            Collections.reverse(path);
+            Arrays.fill(visited, 0);
+            epoch = 0;
         }
-
-        return path;
+        return ++epoch;
     }
 }
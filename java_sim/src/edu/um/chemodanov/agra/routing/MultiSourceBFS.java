@@ -0,0 +1,135 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.routing;
+
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.Topology;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel breadth first search that advances up to 64 sources together.
+ * Every node keeps a 64 bit mask of the sources that already reached it, so a single scan of
+ * a node's links propagates all sources in its frontier at once
+ */
+public class MultiSourceBFS implements BFSConstant
+{
+    public static final int MAX_SOURCES = 64;
+
+    private long[] visited = new long[0];
+    private long[] frontier = new long[0];
+    private long[] next = new long[0];
+    private int[] active = new int[0]; // nodes with non-empty frontier
+    private int[] reached = new int[0]; // nodes with non-empty next frontier
+    private short[] dist = new short[0]; // hop distance table that is reused by the next search
+
+    /**
+     * Finds hop distances from every source to all nodes. Hop distances are less than the number of nodes,
+     * so they are stored as shorts in a table that is allocated once and reused by the next search
+     * @param sources - source node ids (at most 64)
+     * @param t - network topology (at most Short.MAX_VALUE + 1 nodes)
+     * @return hop distance table, i.e., the distance from sources[s] to node v is stored at [s * nodesNum + v]
+     * (NIL if v is unreachable), which is only valid until the next search
+     */
+    public short[] hopDistances(int[] sources, Topology t)
+    {
+        if (sources.length > MAX_SOURCES)
+            throw new IllegalArgumentException("At most " + MAX_SOURCES + " sources are supported, but got " + sources.length);
+
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        int nodesNum = ct.getNodesNum();
+        if (nodesNum > Short.MAX_VALUE + 1)
+            throw new IllegalArgumentException("At most " + (Short.MAX_VALUE + 1) + " nodes are supported, but got " + nodesNum);
+        if (visited.length != nodesNum)
+        {
+            visited = new long[nodesNum];
+            frontier = new long[nodesNum];
+            next = new long[nodesNum];
+            active = new int[nodesNum];
+            reached = new int[nodesNum];
+            dist = new short[MAX_SOURCES * nodesNum];
+        }
+        else
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(frontier, 0);
+        }
+
+        Arrays.fill(dist, 0, sources.length * nodesNum, (short) NIL);
+        int activeNum = 0;
+        for (int s = 0; s < sources.length; s++)
+        {
+            int src = sources[s];
+            if (frontier[src] == 0)
+                active[activeNum++] = src;
+            visited[src] |= 1L << s;
+            frontier[src] |= 1L << s;
+            dist[s * nodesNum + src] = 0;
+        }
+
+        for (int level = 1; activeNum > 0; level++)
+        {
+            //push frontier of active nodes to their neighbors
+            int reachedNum = 0;
+            for (int i = 0; i < activeNum; i++)
+            {
+                int n = active[i];
+                long bits = frontier[n];
+                frontier[n] = 0;
+                for (int k = offsets[n]; k < ends[n]; k++)
+                {
+                    int neighbor = targets[k];
+                    long newBits = bits & ~visited[neighbor];
+                    if (newBits != 0)
+                    {
+                        if (next[neighbor] == 0)
+                            reached[reachedNum++] = neighbor;
+                        next[neighbor] |= newBits;
+                    }
+                }
+            }
+
+            //record distances of the newly reached nodes, which form the next frontier
+            for (int i = 0; i < reachedNum; i++)
+            {
+                int n = reached[i];
+                long bits = next[n] & ~visited[n];
+                next[n] = 0;
+                visited[n] |= bits;
+                frontier[n] = bits;
+                for (long b = bits; b != 0; b &= b - 1)
+                    dist[Long.numberOfTrailingZeros(b) * nodesNum + n] = (short) level;
+            }
+            int[] swap = active;
+            active = reached;
+            reached = swap;
+            activeNum = reachedNum;
+        }
+        return dist;
+    }
+}
@@ -44,17 +44,25 @@ public class SparkLauncher
     public static void start(final Topology t, final int resolution)
     {
         final BFS bfs = new BFS();
-        final GF gf = new GF();
-        final GPGF gpgf = new GPGF();
         final ARPGF_Local arpgf = new ARPGF_Local();
         final ARGF_Local argf = new ARGF_Local();
+        //engines selected by the query parameter of the same name
+        final Map<String, ForwardingEngine> engines = new LinkedHashMap<>();
+        engines.put("gf", new GF(false));
+        engines.put("gpsr", new GF(true));
+        engines.put("gpgf", new GPGF());
+        engines.put("arpgf", arpgf);
+        engines.put("argf", argf);
+        final PathResult result = new PathResult();
 
         final JGraphToGraphJS gToJS = new JGraphToGraphJS(resolution);
 
         get(new Route("/topology.html")
         {
+            //Spark serves requests on a thread pool, while the topology, engines (with their reusable state),
+            //the path result and the route view are shared, so requests are handled one at a time
             @Override
-            public Object handle(Request request, Response response)
+            public synchronized Object handle(Request request, Response response)
             {
                 StringBuilder str = new StringBuilder();
 
@@ -69,6 +77,14 @@ public class SparkLauncher
                 List<Node> route = new ArrayList<>();
                 try
                 {
+                    String engineName = null;
+                    for (String name : engines.keySet())
+                        if (!StringUtils.isEmpty(request.queryParams(name)))
+                        {
+                            engineName = name;
+                            break;
+                        }
+
                     if (!StringUtils.isEmpty(request.queryParams("bfs")))
                     {
                         if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
@@ -88,64 +104,7 @@ public class SparkLauncher
 
                             gToJS.setRoute(route);
                         }
-                    } else if (!StringUtils.isEmpty(request.queryParams("gf")))
-                    {
-                        if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
-                        {
-                            int srcID = Integer.parseInt(request.queryParams("srcID"));
-                            int dstID = Integer.parseInt(request.queryParams("dstID"));
-
-                            if (!StringUtils.isEmpty(request.queryParams("radius")))
-                            {
-                                double radius = Double.parseDouble(request.queryParams("radius"));
-                                for (Node n : t.getNodes())
-                                    n.setR(radius);
-                                t.reInitializeNeighbors();
-                            }
-
-                            route = gf.greedyForwarding(srcID, dstID, t, false, 1000);
-
-                            gToJS.setRoute(route);
-                        }
-                    } else if (!StringUtils.isEmpty(request.queryParams("gpsr")))
-                    {
-                        if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
-                        {
-                            int srcID = Integer.parseInt(request.queryParams("srcID"));
-                            int dstID = Integer.parseInt(request.queryParams("dstID"));
-
-                            if (!StringUtils.isEmpty(request.queryParams("radius")))
-                            {
-                                double radius = Double.parseDouble(request.queryParams("radius"));
-                                for (Node n : t.getNodes())
-                                    n.setR(radius);
-                                t.reInitializeNeighbors();
-                            }
-
-                            route = gf.greedyForwarding(srcID, dstID, t, true, 1000);
-
-                            gToJS.setRoute(route);
-                        }
-                    } else if (!StringUtils.isEmpty(request.queryParams("gpgf")))
-                    {
-                        if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
-                        {
-                            int srcID = Integer.parseInt(request.queryParams("srcID"));
-                            int dstID = Integer.parseInt(request.queryParams("dstID"));
-
-                            if (!StringUtils.isEmpty(request.queryParams("radius")))
-                            {
-                                double radius = Double.parseDouble(request.queryParams("radius"));
-                                for (Node n : t.getNodes())
-                                    n.setR(radius);
-                                t.reInitializeNeighbors();
-                            }
-
-                            route = gpgf.greedyForwarding(srcID, dstID, t, 1000);
-
-                            gToJS.setRoute(route);
-                        }
-                    } else if (!StringUtils.isEmpty(request.queryParams("arpgf")))
+                    } else if (engineName != null)
                     {
                         if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
                         {
@@ -160,38 +119,18 @@ public class SparkLauncher
                                 t.reInitializeNeighbors();
                             }
 
+                            ForwardingEngine engine = engines.get(engineName);
                             if (!StringUtils.isEmpty(request.queryParams("deg")))
                             {
                                 double deg = Double.parseDouble(request.queryParams("deg"));
-                                arpgf.setDeg(deg);
-                            }
-
-                            route = arpgf.potentialGreedyForwarding(srcID, dstID, t, 1000);
-
-                            gToJS.setRoute(route);
-                        }
-                    } else if (!StringUtils.isEmpty(request.queryParams("argf")))
-                    {
-                        if (!StringUtils.isEmpty(request.queryParams("srcID")) && !StringUtils.isEmpty(request.queryParams("dstID")))
-                        {
-                            int srcID = Integer.parseInt(request.queryParams("srcID"));
-                            int dstID = Integer.parseInt(request.queryParams("dstID"));
-
-                            if (!StringUtils.isEmpty(request.queryParams("radius")))
-                            {
-                                double radius = Double.parseDouble(request.queryParams("radius"));
-                                for (Node s : t.getNodes())
-                                    s.setR(radius);
-                                t.reInitializeNeighbors();
-                            }
-
-                            if (!StringUtils.isEmpty(request.queryParams("deg")))
-                            {
-                                double deg = Double.parseDouble(request.queryParams("deg"));
-                                argf.setDeg(deg);
+                                if (engine == arpgf)
+                                    arpgf.setDeg(deg);
+                                else if (engine == argf)
+                                    argf.setDeg(deg);
                             }
 
-                            route = argf.potentialGreedyForwarding(srcID, dstID, t, 1000);
+                            engine.forward(srcID, dstID, t, 1000, result);
+                            route = result.toNodes(t.getNodes());
 
                             gToJS.setRoute(route);
                         }
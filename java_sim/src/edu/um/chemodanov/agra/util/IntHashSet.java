@@ -0,0 +1,130 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of non-negative int keys (e.g., node or obstacle ids).
+ * Unlike HashSet of Integer it neither boxes keys nor allocates on lookups
+ */
+public class IntHashSet
+{
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int size;
+    private int mask;
+
+    public IntHashSet()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize - expected number of keys
+     */
+    public IntHashSet(int expectedSize)
+    {
+        int capacity = 4;
+        while (capacity * 3 < expectedSize * 4)
+            capacity <<= 1;
+        this.keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param key - non-negative key
+     * @return true if the key was not in the set
+     */
+    public boolean add(int key)
+    {
+        int i = slot(key);
+        while (keys[i] != FREE)
+        {
+            if (keys[i] == key)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size * 4 > keys.length * 3)
+            rehash(keys.length << 1);
+        return true;
+    }
+
+    public boolean contains(int key)
+    {
+        int i = slot(key);
+        while (keys[i] != FREE)
+        {
+            if (keys[i] == key)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public void clear()
+    {
+        if (size > 0)
+        {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+    }
+
+    private int slot(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] old = keys;
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        for (int key : old)
+            if (key != FREE)
+            {
+                int i = slot(key);
+                while (keys[i] != FREE)
+                    i = (i + 1) & mask;
+                keys[i] = key;
+            }
+    }
+}
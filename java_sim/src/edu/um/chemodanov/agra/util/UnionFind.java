@@ -0,0 +1,84 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.util;
+
+/**
+ * Disjoint sets of ids 0..n-1 (union-find) with union by size and path halving,
+ * i.e., a sequence of m operations takes O(m alpha(n)) time
+ */
+public class UnionFind
+{
+    private int[] parent;
+    private int[] size; // of the set, valid for roots only
+
+    /**
+     * @param n - number of ids, every id starts in its own set
+     */
+    public UnionFind(int n)
+    {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    /**
+     * @return root (i.e., representative) of the set that contains id
+     */
+    public int find(int id)
+    {
+        while (parent[id] != id)
+        {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Merges sets that contain a and b
+     *
+     * @return true if they were different sets
+     */
+    public boolean union(int a, int b)
+    {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb)
+            return false;
+        if (size[ra] < size[rb])
+        {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        return true;
+    }
+}
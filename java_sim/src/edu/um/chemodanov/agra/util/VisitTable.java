@@ -0,0 +1,96 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.util;
+
+import java.util.Arrays;
+
+/**
+ * Visit counters indexed by node id, e.g., the header of a packet in pressure mode.
+ * A counter belongs to the current packet iff its stamp equals the current epoch, so clear() takes O(1) time
+ * and a single instance serves all packets forwarded by a thread without allocation (i.e., it is not thread-safe)
+ */
+public class VisitTable
+{
+    private static final int[] EMPTY = new int[0];
+
+    private int[] counts = EMPTY;
+    private int[] stamps = EMPTY; // epoch of the last packet that visited a node
+    private int epoch = 0;
+    private int size;
+
+    /**
+     * Forgets all visits, e.g., before a new packet is forwarded
+     * @param nodesNum - number of nodes in the topology
+     */
+    public void clear(int nodesNum)
+    {
+        if (stamps.length != nodesNum)
+        {
+            counts = new int[nodesNum];
+            stamps = new int[nodesNum];
+            epoch = 0;
+        }
+        if (epoch == Integer.MAX_VALUE)
+        {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+        size = 0;
+    }
+
+    /**
+     * @param id - node id
+     * @return number of visits of the node or 0 if it was not visited
+     */
+    public int get(int id)
+    {
+        return stamps[id] == epoch ? counts[id] : 0;
+    }
+
+    /**
+     * Increments visits of the node
+     * @param id - node id
+     * @return new number of visits
+     */
+    public int increment(int id)
+    {
+        if (stamps[id] != epoch)
+        {
+            stamps[id] = epoch;
+            counts[id] = 0;
+            size++;
+        }
+        return ++counts[id];
+    }
+
+    /**
+     * @return number of visited nodes
+     */
+    public int size()
+    {
+        return this.size;
+    }
+}
@@ -0,0 +1,95 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra;
+
+import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.Topology;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * Seeded topologies for the deterministic checks, i.e., grids with random radio ranges and obstacles
+ * that are set up the same way as in the experiments
+ */
+public class CheckTopology
+{
+    /**
+     * @param seed - seed of radio ranges and obstacles
+     * @param size - grid size
+     * @param obstaclesNum - number of simple obstacles
+     * @return topology with initialized links and circumscribed obstacles
+     */
+    public static Topology seeded(long seed, int size, int obstaclesNum)
+    {
+        Random rand = new Random(seed);
+        Topology t = grid(size, new Random(rand.nextLong()));
+        for (Node n : t.getNodes())
+            n.setR(rand.nextDouble() * 1 + 4);
+        for (int i = 0; i < obstaclesNum; i++)
+            t.generateObstacle(2 + rand.nextInt(size - 2), 2 + rand.nextInt(size - 2), 1 + rand.nextDouble() * (size / 10.0 - 1));
+        t.reInitializeNeighbors();
+        t.initializeCircumscribedObstacles();
+        return t;
+    }
+
+    /**
+     * @param size - grid size
+     * @param links - random generator of asymmetrical links
+     * @return grid topology without links
+     */
+    public static Topology grid(int size, Random links)
+    {
+        return new Topology(size, links);
+    }
+
+    /**
+     * Silences the progress messages that the simulator prints to System.out
+     *
+     * @return original System.out to report results
+     */
+    public static PrintStream quiet()
+    {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+            }
+        }));
+        return out;
+    }
+
+    /**
+     * @throws AssertionError with the message if the condition does not hold
+     */
+    public static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,209 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.model.PlanarGraph;
+import edu.um.chemodanov.agra.model.Planarization;
+import edu.um.chemodanov.agra.model.Topology;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks LoopDetector against a set of visited states, which stops a walk at its first repeated state.
+ * Walks are right-hand rule walks over planar faces of seeded topologies (the state is the previous and
+ * the current node) and iterations of random functions. A loop must never be reported before the first repeat
+ * (i.e., after mu hops before the cycle and lambda hops of the cycle) and must be reported within
+ * 2 max(mu + 1, lambda) + lambda - 1 hops
+ */
+public class LoopDetectorCheck
+{
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        int walks = 0;
+        LoopDetector loops = new LoopDetector(2);
+        for (long seed = 1; seed <= 3; seed++)
+        {
+            Topology t = CheckTopology.seeded(seed, 40, 15);
+            t.planarize(Planarization.RNG);
+            PlanarGraph planar = t.getPlanarGraph();
+            int[] offsets = planar.getOffsets();
+            int[] targets = planar.getTargets();
+            for (int u = 0; u < offsets.length - 1; u++)
+                for (int k = offsets[u]; k < offsets[u + 1]; k++)
+                {
+                    compare(loops, new FaceWalk(planar, u, targets[k]), "seed " + seed + ": face walk from link " + k);
+                    walks++;
+                }
+        }
+
+        Random rand = new Random(1);
+        for (int i = 0; i < 2000; i++)
+        {
+            int[] f = new int[1 + rand.nextInt(i < 1000 ? 20 : 5000)];
+            for (int x = 0; x < f.length; x++)
+                f[x] = rand.nextInt(f.length);
+            compare(loops, new FunctionWalk(f, rand.nextInt(f.length)), "function " + i);
+            walks++;
+        }
+        out.println("LoopDetectorCheck: " + walks + " walks stopped within the bound after their first repeated state");
+    }
+
+    /**
+     * Deterministic walk over states of two words
+     */
+    private interface Walk
+    {
+        long first();
+
+        long second();
+
+        void next();
+    }
+
+    /**
+     * Right-hand rule walk of a packet that came to the current node from the previous one
+     */
+    private static class FaceWalk implements Walk
+    {
+        private PlanarGraph planar;
+        private int prev;
+        private int cur;
+
+        FaceWalk(PlanarGraph planar, int prev, int cur)
+        {
+            this.planar = planar;
+            this.prev = prev;
+            this.cur = cur;
+        }
+
+        public long first()
+        {
+            return prev;
+        }
+
+        public long second()
+        {
+            return cur;
+        }
+
+        public void next()
+        {
+            int link = planar.rightHandLink(cur, prev);
+            int next = link < 0 ? prev : planar.getTargets()[link];
+            prev = cur;
+            cur = next;
+        }
+    }
+
+    /**
+     * Iterations of a function x = f(x)
+     */
+    private static class FunctionWalk implements Walk
+    {
+        private int[] f;
+        private int x;
+
+        FunctionWalk(int[] f, int x)
+        {
+            this.f = f;
+            this.x = x;
+        }
+
+        public long first()
+        {
+            return x;
+        }
+
+        public long second()
+        {
+            return -x;
+        }
+
+        public void next()
+        {
+            x = f[x];
+        }
+    }
+
+    /**
+     * internal method that runs the walk with a visited set up to the first repeat and then with the detector
+     */
+    private static void compare(LoopDetector loops, Walk walk, String name)
+    {
+        //first repeat of the walk, i.e., hop mu + lambda repeats the state of hop mu
+        Map<Long, Integer> visited = new HashMap<>();
+        int hop = 0;
+        Walk reference = copy(walk);
+        while (true)
+        {
+            Integer seen = visited.put(key(reference), hop);
+            if (seen != null)
+            {
+                int mu = seen;
+                int lambda = hop - mu;
+                int bound = 2 * Math.max(mu + 1, lambda) + lambda - 1;
+
+                loops.reset();
+                for (int detected = 0; ; detected++, walk.next())
+                {
+                    loops.set(0, walk.first());
+                    loops.set(1, walk.second());
+                    if (loops.looped())
+                    {
+                        CheckTopology.check(detected >= mu + lambda, name + ": loop reported after " + detected
+                                + " hops before the first repeat after " + (mu + lambda) + " hops");
+                        CheckTopology.check(detected <= bound, name + ": loop reported after " + detected
+                                + " hops instead of at most " + bound + " (mu=" + mu + ", lambda=" + lambda + ")");
+                        return;
+                    }
+                    CheckTopology.check(detected <= bound, name + ": loop is not reported within " + bound + " hops");
+                }
+            }
+            reference.next();
+            hop++;
+        }
+    }
+
+    private static long key(Walk walk)
+    {
+        return (walk.first() << 32) ^ (walk.second() & 0xffffffffL);
+    }
+
+    private static Walk copy(Walk walk)
+    {
+        if (walk instanceof FaceWalk)
+        {
+            FaceWalk w = (FaceWalk) walk;
+            return new FaceWalk(w.planar, w.prev, w.cur);
+        }
+        FunctionWalk w = (FunctionWalk) walk;
+        return new FunctionWalk(w.f, w.x);
+    }
+}
@@ -0,0 +1,102 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.model.Topology;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the obstacle tree with theta = 0 gives the exact sum of repulsions over all obstacles (up to
+ * the rounding of a different summation order) for circumscribed obstacles of seeded topologies and for
+ * random obstacles that split the tree into many cells
+ */
+public class ObstacleTreeCheck
+{
+    private static final double[] DEGREES = {1, 1.5, 2, 3, 4};
+    private static final double EPS = 1e-12; // relative to the sum of absolute terms
+
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        int points = 0;
+        for (long seed = 1; seed <= 3; seed++)
+        {
+            Topology t = CheckTopology.seeded(seed, 60, 25);
+            points += compare(t.getCircumscribedObstacles(), t.getNodes(), new Random(seed));
+
+            Random rand = new Random(seed);
+            List<Obstacle> obstacles = new ArrayList<>();
+            for (int i = 0; i < 500; i++)
+                obstacles.add(new Obstacle(i, 1 + rand.nextDouble() * 58, 1 + rand.nextDouble() * 58, 0.5 + rand.nextDouble() * 3));
+            points += compare(obstacles, t.getNodes(), rand);
+        }
+        out.println("ObstacleTreeCheck: " + points + " repulsions match the exact sum");
+    }
+
+    /**
+     * internal method that compares the tree and the exact sum at all switched on nodes for a random destination
+     *
+     * @return number of compared points
+     */
+    private static int compare(List<Obstacle> obstacles, List<Node> nodes, Random rand)
+    {
+        ObstacleTree tree = new ObstacleTree(obstacles);
+        PotentialKernel kernel = new PotentialKernel();
+        ChargeTable chargeTable = new ChargeTable();
+        int points = 0;
+        for (double deg : DEGREES)
+        {
+            kernel.setDeg(deg);
+            Node dst = nodes.get(rand.nextInt(nodes.size()));
+            double[] charges = chargeTable.getCharges(dst, obstacles, 1, deg);
+            tree.setCharges(charges);
+            for (Node n : nodes)
+                if (n.isOn())
+                {
+                    double exact = 0;
+                    double scale = 0;
+                    for (Obstacle h : obstacles)
+                    {
+                        double term = charges[h.getId()] / Math.pow(EuclDist.d(h.getX(), h.getY(), n.getX(), n.getY()), deg);
+                        exact += term;
+                        scale += Math.abs(term);
+                    }
+                    double approx = tree.repulsion(n.getX(), n.getY(), 0, kernel);
+                    CheckTopology.check(Math.abs(approx - exact) <= EPS * scale, "deg " + deg + ": repulsion at "
+                            + n + " is " + approx + " instead of " + exact);
+                    points++;
+                }
+        }
+        return points;
+    }
+}
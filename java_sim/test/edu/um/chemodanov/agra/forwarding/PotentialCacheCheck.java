@@ -0,0 +1,229 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.forwarding;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.model.CompactTopology;
+import edu.um.chemodanov.agra.model.LocalObstacles;
+import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.Obstacle;
+import edu.um.chemodanov.agra.model.Planarization;
+import edu.um.chemodanov.agra.model.Topology;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks the potential cache on seeded topologies. Paths of all potential engines with the cache on (with the default
+ * budget and with a budget that keeps the selected table only) must be exactly the paths with the cache off. Lookups
+ * of a cache with a budget of two tables must be exactly the potentials computed by the kernel while tables are
+ * evicted in the least recently used order and evicted tables are recycled
+ */
+public class PotentialCacheCheck
+{
+    private static final double[] DEGREES = {1, 2, 3};
+    private static final long TINY_BUDGET = 1; // bytes, i.e., only the selected table is kept
+
+    public static void main(String[] args) throws ReflectiveOperationException
+    {
+        PrintStream out = CheckTopology.quiet();
+        int paths = 0;
+        int lookups = 0;
+        for (long seed = 1; seed <= 2; seed++)
+        {
+            Topology t = CheckTopology.seeded(seed, 60, 25);
+            t.planarize(Planarization.RNG);
+            paths += comparePaths(t, new Random(seed), "seed " + seed);
+            lookups += checkEviction(t, t.getLocalObstacles(2), new Random(seed), "seed " + seed + " (local)");
+            lookups += checkEviction(t, null, new Random(seed), "seed " + seed + " (global)");
+        }
+        out.println("PotentialCacheCheck: " + paths + " paths match with the cache off, " + lookups
+                + " lookups match the kernel while tables are evicted");
+    }
+
+    private static PotentialForwarding[] engines(boolean useCache, long budget)
+    {
+        PotentialForwarding[] engines = {new ARGF_Global(), new ARGF_Local(), new ARPGF_Global(), new ARPGF_Local(), new ARPSR()};
+        for (PotentialForwarding engine : engines)
+        {
+            engine.setUseCache(useCache);
+            engine.setCacheBudget(budget);
+        }
+        return engines;
+    }
+
+    /**
+     * internal method that routes pairs grouped by destination (so tables are shared) with the cache off and on
+     *
+     * @return number of compared paths
+     */
+    private static int comparePaths(Topology t, Random rand, String name)
+    {
+        List<Integer> onNodes = new ArrayList<>();
+        for (Node n : t.getNodes())
+            if (n.isOn())
+                onNodes.add(n.getId());
+        PotentialForwarding[] off = engines(false, PotentialCache.DEFAULT_BUDGET);
+        PotentialForwarding[] on = engines(true, PotentialCache.DEFAULT_BUDGET);
+        PotentialForwarding[] tiny = engines(true, TINY_BUDGET);
+        PathResult expected = new PathResult();
+        PathResult actual = new PathResult();
+        int ttl = 4 * t.getGridSize();
+        int paths = 0;
+        for (double deg : DEGREES)
+            for (int d = 0; d < 8; d++)
+            {
+                int dst = onNodes.get(rand.nextInt(onNodes.size()));
+                for (int s = 0; s < 12; s++)
+                {
+                    int src = onNodes.get(rand.nextInt(onNodes.size()));
+                    for (int e = 0; e < off.length; e++)
+                    {
+                        off[e].setDeg(deg);
+                        off[e].forward(src, dst, t, ttl, expected);
+                        String path = name + ": " + off[e].getName() + " (deg " + deg + ") " + src + "->" + dst;
+                        on[e].setDeg(deg);
+                        on[e].forward(src, dst, t, ttl, actual);
+                        compare(expected, actual, path + " with the cache");
+                        tiny[e].setDeg(deg);
+                        tiny[e].forward(src, dst, t, ttl, actual);
+                        compare(expected, actual, path + " with the tiny cache");
+                        paths += 2;
+                    }
+                }
+            }
+        return paths;
+    }
+
+    private static void compare(PathResult expected, PathResult actual, String name)
+    {
+        CheckTopology.check(expected.getStatus() == actual.getStatus(), name + ": status " + actual.getStatus()
+                + " instead of " + expected.getStatus());
+        CheckTopology.check(expected.size() == actual.size(), name + ": " + actual.size() + " nodes instead of " + expected.size());
+        for (int i = 0; i < expected.size(); i++)
+            CheckTopology.check(expected.get(i) == actual.get(i), name + ": hop " + i + " differs");
+        for (PathResult.Mode mode : PathResult.Mode.values())
+            CheckTopology.check(expected.getModeHops(mode) == actual.getModeHops(mode), name + ": " + mode + " hops differ");
+        CheckTopology.check(expected.getHeaderSize() == actual.getHeaderSize(), name + ": header size differs");
+    }
+
+    /**
+     * internal method that selects destinations at random in a cache that holds two tables and compares lookups
+     * with the kernel. A destination whose table was used by one of the last two selections must keep its table,
+     * other destinations must recycle the table evicted last (if any)
+     *
+     * @param local - local obstacle knowledge or null for global knowledge
+     * @return number of compared lookups
+     */
+    private static int checkEviction(Topology t, LocalObstacles local, Random rand, String name) throws ReflectiveOperationException
+    {
+        CompactTopology ct = t.getCompactTopology();
+        List<Obstacle> obstacles = t.getCircumscribedObstacles();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        double[] x = ct.getX();
+        double[] y = ct.getY();
+        int size = ct.getNodesNum() + (local == null ? 0 : targets.length);
+        long budget = 2 * 12L * size;
+        double deg = 2;
+        double q = 1;
+
+        PotentialCache cache = new PotentialCache(budget);
+        PotentialKernel kernel = new PotentialKernel();
+        kernel.setDeg(deg);
+        ChargeTable chargeTable = new ChargeTable();
+        List<Integer> dsts = new ArrayList<>();
+        for (Node n : t.getNodes())
+            if (n.isOn() && dsts.size() < 5 && rand.nextInt(10) == 0)
+                dsts.add(n.getId());
+
+        LinkedList<Integer> recent = new LinkedList<>(); // cached destinations, the least recently used first
+        Map<Integer, Object> tables = new HashMap<>();
+        int lookups = 0;
+        for (int i = 0; i < 60; i++)
+        {
+            int dst = dsts.get(rand.nextInt(dsts.size()));
+            Node dstN = t.getNodes().get(dst);
+            double[] charges = chargeTable.getCharges(dstN, obstacles, q, deg);
+            Object spare = field(cache, "spare");
+            cache.select(dst, ct, obstacles, local, charges, deg, q);
+            Object table = field(cache, "table");
+            if (recent.remove(Integer.valueOf(dst)))
+                CheckTopology.check(table == tables.get(dst), name + ": table of " + dst + " was evicted too early");
+            else
+            {
+                CheckTopology.check(spare == null || table == spare, name + ": evicted table was not recycled for " + dst);
+                if (recent.size() == 2)
+                {
+                    int evicted = recent.removeFirst();
+                    CheckTopology.check(field(cache, "spare") == tables.get(evicted), name + ": table of " + evicted
+                            + " was not evicted");
+                }
+            }
+            recent.addLast(dst);
+            tables.put(dst, table);
+            CheckTopology.check(((Map<?, ?>) field(cache, "tables")).size() == recent.size()
+                    && (Long) field(cache, "bytes") <= budget, name + ": cached tables exceed the budget");
+
+            //lookups in random order, so some entries of a recycled table are read before they are computed
+            for (int j = 0; j < 200; j++)
+            {
+                int u = rand.nextInt(ct.getNodesNum());
+                if (!ct.isOn(u))
+                    continue;
+                int[] localIds = local == null ? null : local.getIds();
+                int from = local == null ? 0 : local.getOffsets()[u];
+                int to = local == null ? obstacles.size() : local.getOffsets()[u + 1];
+                kernel.setObstacles(obstacles, localIds, from, to, charges);
+                CheckTopology.check(cache.node(u) == kernel.potential(x[u], y[u], dstN.getX(), dstN.getY(), q),
+                        name + ": potential of " + u + " for " + dst);
+                lookups++;
+                if (offsets[u] < ends[u])
+                {
+                    int k = offsets[u] + rand.nextInt(ends[u] - offsets[u]);
+                    int v = targets[k];
+                    CheckTopology.check(cache.link(k, u) == kernel.potential(x[v], y[v], dstN.getX(), dstN.getY(), q),
+                            name + ": potential of link " + u + "->" + v + " for " + dst);
+                    lookups++;
+                }
+            }
+        }
+        return lookups;
+    }
+
+    private static Object field(PotentialCache cache, String name) throws ReflectiveOperationException
+    {
+        Field field = PotentialCache.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(cache);
+    }
+}
@@ -0,0 +1,226 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.CheckTopology;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the Delaunay-based planarizations on seeded grid topologies with obstacles, a full grid (many collinear and
+ * cocircular nodes) and random placements. Planar links must not cross, must be symmetric where links are,
+ * DELAUNAY_RNG and DELAUNAY_GABRIEL must match the global relative neighborhood and Gabriel graphs found by scanning
+ * all switched on nodes as witnesses, and DELAUNAY_RNG, DELAUNAY_GABRIEL and RESTRICTED_DELAUNAY must be nested.
+ * Coincident nodes are triangulated once, so links of such nodes are left out of the comparison with the scans
+ */
+public class DelaunayCheck
+{
+    private static final Planarization[] PLANARIZATIONS = {Planarization.RESTRICTED_DELAUNAY,
+            Planarization.DELAUNAY_GABRIEL, Planarization.DELAUNAY_RNG};
+
+    private static int links;
+    private static int crossings;
+
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        List<Topology> topologies = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (long seed = 1; seed <= 2; seed++)
+        {
+            topologies.add(CheckTopology.seeded(seed, 40, 12));
+            names.add("seeded " + seed);
+        }
+        Topology grid = CheckTopology.grid(30, new Random(3));
+        grid.reInitializeNeighbors();
+        topologies.add(grid);
+        names.add("grid");
+        for (long seed = 4; seed <= 5; seed++)
+        {
+            Topology t = new Topology(100, 800, new Random(seed));
+            t.reInitializeNeighbors();
+            topologies.add(t);
+            names.add("random " + seed);
+        }
+
+        for (int i = 0; i < topologies.size(); i++)
+            compare(topologies.get(i), names.get(i));
+        out.println("DelaunayCheck: " + links + " planar links match the global scans, " + crossings
+                + " pairs of them checked for crossings");
+    }
+
+    /**
+     * internal method that compares the Delaunay-based planar links of a topology with the scans
+     */
+    private static void compare(Topology t, String name)
+    {
+        List<Node> nodes = t.getNodes();
+        CompactTopology ct = t.getCompactTopology();
+        Set<Integer> coincident = coincident(nodes);
+        List<Set<Long>> planar = new ArrayList<>();
+        for (Planarization planarization : PLANARIZATIONS)
+        {
+            t.planarize(planarization);
+            String where = name + " (" + planarization + ")";
+            Set<Long> pl = planarLinks(t.getPlanarGraph());
+            for (long link : pl)
+            {
+                int u = (int) (link >>> 32), v = (int) link;
+                CheckTopology.check(isLink(ct, u, v), where + ": planar link " + u + "->" + v + " is not a link");
+                CheckTopology.check(!isLink(ct, v, u) || pl.contains(key(v, u)), where + ": planar link " + u + "->" + v + " is not symmetric");
+            }
+            checkCrossings(nodes, pl, where);
+            planar.add(pl);
+        }
+        CheckTopology.check(planar.get(0).containsAll(planar.get(1)), name + ": DELAUNAY_GABRIEL is not a subgraph of RESTRICTED_DELAUNAY");
+        CheckTopology.check(planar.get(1).containsAll(planar.get(2)), name + ": DELAUNAY_RNG is not a subgraph of DELAUNAY_GABRIEL");
+
+        //global graphs restricted to links
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        for (int u = 0; u < nodes.size(); u++)
+            for (int k = offsets[u]; k < ends[u]; k++)
+            {
+                int v = targets[k];
+                if (coincident.contains(u) || coincident.contains(v))
+                    continue;
+                long uv = sqDist(nodes.get(u), nodes.get(v));
+                boolean gabriel = true, rng = true;
+                for (Node w : nodes)
+                    if (w.isOn() && w.getId() != u && w.getId() != v)
+                    {
+                        long uw = sqDist(nodes.get(u), w), vw = sqDist(nodes.get(v), w);
+                        gabriel &= uw + vw > uv;
+                        rng &= uw >= uv || vw >= uv;
+                    }
+                String link = name + ": link " + u + "->" + v;
+                CheckTopology.check(gabriel == planar.get(1).contains(key(u, v)), link + (gabriel ? " is" : " is not") + " a Gabriel link");
+                CheckTopology.check(rng == planar.get(2).contains(key(u, v)), link + (rng ? " is" : " is not") + " an RNG link");
+                links += (gabriel ? 1 : 0) + (rng ? 1 : 0);
+            }
+    }
+
+    /**
+     * internal method that checks that no two planar links share a point other than a common end
+     */
+    private static void checkCrossings(List<Node> nodes, Set<Long> links, String name)
+    {
+        List<int[]> segments = new ArrayList<>();
+        for (long link : links)
+            if ((int) (link >>> 32) < (int) link)
+                segments.add(new int[]{(int) (link >>> 32), (int) link});
+        for (int i = 0; i < segments.size(); i++)
+            for (int j = i + 1; j < segments.size(); j++)
+            {
+                Node a = nodes.get(segments.get(i)[0]), b = nodes.get(segments.get(i)[1]);
+                Node c = nodes.get(segments.get(j)[0]), d = nodes.get(segments.get(j)[1]);
+                if (Math.max(a.getX(), b.getX()) < Math.min(c.getX(), d.getX()) || Math.max(c.getX(), d.getX()) < Math.min(a.getX(), b.getX())
+                        || Math.max(a.getY(), b.getY()) < Math.min(c.getY(), d.getY()) || Math.max(c.getY(), d.getY()) < Math.min(a.getY(), b.getY()))
+                    continue;
+                crossings++;
+                boolean crossing;
+                if (a == c || a == d || b == c || b == d)
+                {
+                    //links with a common end only overlap if the other end of one lies on the other link
+                    Node common = a == c || a == d ? a : b;
+                    Node p = common == a ? b : a;
+                    Node q = common == c ? d : c;
+                    crossing = onSegment(common, p, q) || onSegment(common, q, p);
+                } else
+                {
+                    long d1 = cross(c, d, a), d2 = cross(c, d, b), d3 = cross(a, b, c), d4 = cross(a, b, d);
+                    crossing = (Long.signum(d1) * Long.signum(d2) <= 0 && Long.signum(d3) * Long.signum(d4) <= 0);
+                }
+                CheckTopology.check(!crossing, name + ": planar links " + a + "-" + b + " and " + c + "-" + d + " cross");
+            }
+    }
+
+    /**
+     * internal method that tells if q lies on segment a-b (q is not a)
+     */
+    private static boolean onSegment(Node a, Node b, Node q)
+    {
+        return cross(a, b, q) == 0 && Math.min(a.getX(), b.getX()) <= q.getX() && q.getX() <= Math.max(a.getX(), b.getX())
+                && Math.min(a.getY(), b.getY()) <= q.getY() && q.getY() <= Math.max(a.getY(), b.getY());
+    }
+
+    private static long cross(Node a, Node b, Node c)
+    {
+        return (long) (b.getX() - a.getX()) * (c.getY() - a.getY()) - (long) (b.getY() - a.getY()) * (c.getX() - a.getX());
+    }
+
+    private static long sqDist(Node a, Node b)
+    {
+        long dx = a.getX() - b.getX(), dy = a.getY() - b.getY();
+        return dx * dx + dy * dy;
+    }
+
+    private static long key(int u, int v)
+    {
+        return ((long) u << 32) | v;
+    }
+
+    private static Set<Long> planarLinks(PlanarGraph planar)
+    {
+        Set<Long> links = new HashSet<>();
+        int[] offsets = planar.getOffsets();
+        int[] targets = planar.getTargets();
+        for (int u = 0; u + 1 < offsets.length; u++)
+            for (int k = offsets[u]; k < offsets[u + 1]; k++)
+                links.add(key(u, targets[k]));
+        return links;
+    }
+
+    private static boolean isLink(CompactTopology ct, int u, int v)
+    {
+        for (int k = ct.getNeighborOffsets()[u]; k < ct.getNeighborEnds()[u]; k++)
+            if (ct.getNeighborTargets()[k] == v)
+                return true;
+        return false;
+    }
+
+    /**
+     * @return ids of switched on nodes that share their position with another switched on node
+     */
+    private static Set<Integer> coincident(List<Node> nodes)
+    {
+        Set<Integer> ids = new HashSet<>();
+        Set<Long> positions = new HashSet<>();
+        Set<Long> repeated = new HashSet<>();
+        for (Node n : nodes)
+            if (n.isOn() && !positions.add(key(n.getX(), n.getY())))
+                repeated.add(key(n.getX(), n.getY()));
+        for (Node n : nodes)
+            if (n.isOn() && repeated.contains(key(n.getX(), n.getY())))
+                ids.add(n.getId());
+        return ids;
+    }
+}
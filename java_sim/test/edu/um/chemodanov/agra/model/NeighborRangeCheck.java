@@ -0,0 +1,146 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the linked prefixes that Topology.limitNeighborRange keeps in the compact topology against the original
+ * removal of neighbors out of range from node sets, shrinking radio ranges as in the experiments. Node sets must stay
+ * intact and the planar graph must only use links in range. Every other topology rebuilds the compact topology
+ * after each step, so both limiting a built snapshot and building one with a limited range are covered
+ */
+public class NeighborRangeCheck
+{
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        int links = 0;
+        for (long seed = 1; seed <= 4; seed++)
+        {
+            Random rand = new Random(seed);
+            Topology t = CheckTopology.seeded(rand.nextLong(), 30, 4);
+            boolean rebuilt = seed % 2 == 0;
+            List<Set<Node>> initialized = new ArrayList<>();
+            List<Set<Node>> expected = new ArrayList<>();
+            for (Node n : t.getNodes())
+            {
+                initialized.add(new HashSet<>(n.getNeighbors()));
+                expected.add(new HashSet<>(n.getNeighbors()));
+            }
+            String name = "seed " + seed;
+            links += compare(t, expected, name + ", initialized links");
+            for (int k = 4; k >= 1; k--)
+            {
+                for (Node n : t.getNodes())
+                    n.setR(k > 1 ? k - rand.nextDouble() : k);
+                CompactTopology before = t.getCompactTopology();
+                t.limitNeighborRange(k);
+                if (rebuilt)
+                    t.neighborsChanged();
+                else
+                    CheckTopology.check(t.getCompactTopology() == before, name + ": compact topology was rebuilt for range " + k);
+                t.planarize(Planarization.RNG);
+
+                //original removal of excess neighbors
+                for (Node n : t.getNodes())
+                    if (n.isOn())
+                    {
+                        List<Node> excessNeighbors = new ArrayList<>();
+                        for (Node neighbor : expected.get(n.getId()))
+                            if (EuclDist.d(n.getX(), n.getY(), neighbor.getX(), neighbor.getY()) > k)
+                                excessNeighbors.add(neighbor);
+                        expected.get(n.getId()).removeAll(excessNeighbors);
+                    }
+                links += compare(t, expected, name + ", range " + k);
+                comparePlanar(t, name + ", range " + k);
+                for (Node n : t.getNodes())
+                    CheckTopology.check(n.getNeighbors().equals(initialized.get(n.getId())), name + ": neighbors of " + n + " were changed");
+            }
+        }
+        out.println("NeighborRangeCheck: " + links + " linked prefixes match the original neighbor removal");
+    }
+
+    /**
+     * internal method that compares the linked prefix of every node with the expected neighbors
+     * and checks that the prefix is sorted by distance
+     *
+     * @return number of compared links
+     */
+    private static int compare(Topology t, List<Set<Node>> expected, String name)
+    {
+        CompactTopology ct = t.getCompactTopology();
+        int[] offsets = ct.getNeighborOffsets();
+        int[] targets = ct.getNeighborTargets();
+        int[] ends = ct.getNeighborEnds();
+        int linksNum = 0;
+        for (Node n : t.getNodes())
+        {
+            int u = n.getId();
+            Set<Node> linked = new HashSet<>();
+            double last = 0;
+            for (int k = offsets[u]; k < ends[u]; k++)
+            {
+                Node v = t.getNodes().get(targets[k]);
+                double d = EuclDist.d(n.getX(), n.getY(), v.getX(), v.getY());
+                CheckTopology.check(d >= last, name + ": neighbors of " + n + " are not sorted by distance");
+                last = d;
+                linked.add(v);
+            }
+            Set<Node> links = n.isOn() ? expected.get(u) : new HashSet<Node>();
+            CheckTopology.check(linked.equals(links), name + ": linked neighbors of " + n);
+            CheckTopology.check(ct.degree(u) == links.size(), name + ": degree of " + n);
+            linksNum += linked.size();
+        }
+        return linksNum;
+    }
+
+    /**
+     * internal method that checks that planar links are linked neighbors
+     */
+    private static void comparePlanar(Topology t, String name)
+    {
+        CompactTopology ct = t.getCompactTopology();
+        PlanarGraph planar = t.getPlanarGraph();
+        int[] offsets = planar.getOffsets();
+        int[] targets = planar.getTargets();
+        for (int u = 0; u < ct.getNodesNum(); u++)
+            for (int k = offsets[u]; k < offsets[u + 1]; k++)
+            {
+                boolean linked = false;
+                for (int i = ct.getNeighborOffsets()[u]; i < ct.getNeighborEnds()[u]; i++)
+                    linked |= ct.getNeighborTargets()[i] == targets[k];
+                CheckTopology.check(linked, name + ": planar link " + u + "->" + targets[k] + " is out of range");
+            }
+    }
+}
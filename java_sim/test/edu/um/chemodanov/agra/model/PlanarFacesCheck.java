@@ -0,0 +1,115 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.CheckTopology;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Checks the face table that the GPSR perimeter mode walks on seeded grid topologies: successors and rotations of
+ * every link against the right-hand rule lookups of PlanarGraph, every face as a closed walk of successors and
+ * every link in at most one face. Links are planarized (RNG and Gabriel) or kept as they are (i.e., asymmetrical
+ * links that lead into faces are common then)
+ */
+public class PlanarFacesCheck
+{
+    private static final Planarization[] PLANARIZATIONS = {Planarization.RNG, Planarization.GABRIEL, null};
+
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        for (Planarization planarization : PLANARIZATIONS)
+        {
+            int links = 0;
+            int faces = 0;
+            for (long seed = 1; seed <= 2; seed++)
+            {
+                Topology t = CheckTopology.seeded(seed, 60, 25);
+                t.planarize(planarization);
+                PlanarGraph planar = t.getPlanarGraph();
+                compare(planar, t.getNodes(), "seed " + seed + " (" + planarization + ")");
+                links += planar.getTargets().length;
+                faces += planar.getFaces().getFacesNum();
+            }
+            out.println("PlanarFacesCheck (" + (planarization == null ? "all links" : planarization) + "): " + links
+                    + " links and " + faces + " faces match the right-hand rule");
+        }
+    }
+
+    /**
+     * internal method that compares the face table with the right-hand rule lookups and checks its faces
+     */
+    private static void compare(PlanarGraph planar, List<Node> nodes, String name)
+    {
+        PlanarFaces faces = planar.getFaces();
+        int[] offsets = planar.getOffsets();
+        int[] targets = planar.getTargets();
+        int linksNum = targets.length;
+        for (int u = 0; u + 1 < offsets.length; u++)
+            for (int k = offsets[u]; k < offsets[u + 1]; k++)
+            {
+                int v = targets[k];
+                CheckTopology.check(faces.getSource(k) == u, name + ": source of link " + k);
+                CheckTopology.check(faces.getFaceNext(k) == planar.rightHandLink(v, u),
+                        name + ": next of link " + u + "->" + v);
+                int rotated = planar.counterclockwiseLink(u, nodes.get(v).getX() - nodes.get(u).getX(),
+                        nodes.get(v).getY() - nodes.get(u).getY(), v);
+                CheckTopology.check(faces.getCcwNext(k) == (rotated < 0 ? k : rotated),
+                        name + ": rotation of link " + u + "->" + v);
+            }
+
+        //faces are closed walks of successors and no link is in two faces
+        int[] faceOffsets = faces.getFaceOffsets();
+        int[] faceLinks = faces.getFaceLinks();
+        int[] seen = new int[linksNum];
+        for (int f = 0; f < faces.getFacesNum(); f++)
+        {
+            CheckTopology.check(faceOffsets[f] < faceOffsets[f + 1], name + ": face " + f + " is empty");
+            for (int i = faceOffsets[f]; i < faceOffsets[f + 1]; i++)
+            {
+                int k = faceLinks[i];
+                int next = faceLinks[i + 1 < faceOffsets[f + 1] ? i + 1 : faceOffsets[f]];
+                CheckTopology.check(faces.getFace(k) == f, name + ": face of link " + k);
+                CheckTopology.check(faces.getFaceNext(k) == next, name + ": walk of face " + f + " at link " + k);
+                seen[k]++;
+            }
+        }
+        for (int k = 0; k < linksNum; k++)
+        {
+            CheckTopology.check(seen[k] == (faces.getFace(k) == PlanarFaces.NO_FACE ? 0 : 1), name + ": faces of link " + k);
+            if (faces.getFace(k) != PlanarFaces.NO_FACE)
+                continue;
+            //a link without a face never returns to itself, i.e., it bounces back or leads into a face
+            int e = faces.getFaceNext(k);
+            for (int i = 0; i < linksNum && e >= 0 && faces.getFace(e) == PlanarFaces.NO_FACE; i++)
+            {
+                CheckTopology.check(e != k, name + ": link " + k + " without a face is on a cycle");
+                e = faces.getFaceNext(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the right-hand rule lookups on the counterclockwise rings of PlanarGraph on seeded grid topologies. Links are
+ * planarized (RNG and Gabriel) or kept as they are (i.e., no prohibited neighbors), since collinear neighbors are common
+ * then. Every choice must be the one of the bearing rule (as in the GPSR code kept in comments of GF): the least
+ * counterclockwise bearing from the sweep start direction, where links in the same direction are taken by length.
+ * Choices are also compared with the original rule, which sweeps neighbors by angles from Math.acos: it may only differ
+ * by collinear candidates (see counterclockwiseLink), such differences are counted and reported
+ */
+public class PlanarGraphCheck
+{
+    private static final Planarization[] PLANARIZATIONS = {Planarization.RNG, Planarization.GABRIEL, null};
+
+    private static int choices;
+    private static int collinear;
+
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        for (Planarization planarization : PLANARIZATIONS)
+        {
+            choices = 0;
+            collinear = 0;
+            for (long seed = 1; seed <= 2; seed++)
+            {
+                Topology t = CheckTopology.seeded(seed, 60, 25);
+                t.planarize(planarization);
+                compare(t, new Random(seed), "seed " + seed + " (" + planarization + ")");
+            }
+            out.println("PlanarGraphCheck (" + (planarization == null ? "all links" : planarization) + "): " + choices
+                    + " choices match the bearing rule, " + collinear + " of them differ from the acos rule by collinear candidates");
+        }
+    }
+
+    /**
+     * internal method that compares the right-hand rule choices for all planar links and first hops of all nodes
+     */
+    private static void compare(Topology t, Random rand, String name)
+    {
+        PlanarGraph planar = t.getPlanarGraph();
+        List<Node> nodes = t.getNodes();
+        int[] offsets = planar.getOffsets();
+        int[] targets = planar.getTargets();
+        for (int u = 0; u < nodes.size(); u++)
+        {
+            Node n = nodes.get(u);
+            if (!n.isOn())
+                continue;
+            List<Node> neighbors = planarNeighbors(n, planar);
+            for (int k = offsets[u]; k < offsets[u + 1]; k++)
+            {
+                Node v = nodes.get(targets[k]);
+                List<Node> vNeighbors = planarNeighbors(v, planar);
+
+                //packet came to v from n
+                Node actual = rightHand(planar, nodes, v, n);
+                Node expected = bearingRule(v, n.getX(), n.getY(), n, vNeighbors);
+                compare(v, n.getX(), n.getY(), expected == null ? n : expected, actual,
+                        rightHandForward2(v, n, vNeighbors), name + ": right-hand rule at " + v + " from " + n);
+
+                //next neighbor counterclockwise around n
+                actual = counterclockwise(planar, nodes, n, v.getX() - n.getX(), v.getY() - n.getY(), v);
+                expected = bearingRule(n, v.getX(), v.getY(), v, neighbors);
+                Node original = rightHandForward2(n, v, neighbors);
+                compare(n, v.getX(), v.getY(), expected, actual, original == v ? null : original,
+                        name + ": rotation of " + n + " from " + v);
+            }
+
+            //first perimeter hop towards a destination, including destinations in the direction of a neighbor
+            for (int i = 0; i < 4; i++)
+            {
+                Node dst = nodes.get(rand.nextInt(nodes.size()));
+                if (i % 2 == 1 && !neighbors.isEmpty())
+                {
+                    Node ne = neighbors.get(rand.nextInt(neighbors.size()));
+                    int far = 1 + rand.nextInt(3);
+                    dst = new Node(-1, n.getX() + far * (ne.getX() - n.getX()), n.getY() + far * (ne.getY() - n.getY()));
+                }
+                if (dst.getX() == n.getX() && dst.getY() == n.getY())
+                    continue;
+                Node actual = counterclockwise(planar, nodes, n, dst.getX() - n.getX(), dst.getY() - n.getY(), null);
+                compare(n, dst.getX(), dst.getY(), bearingRule(n, dst.getX(), dst.getY(), null, neighbors), actual,
+                        periInitForward2(n, dst.getX(), dst.getY(), neighbors), name + ": first hop of " + n + " to " + dst);
+            }
+        }
+    }
+
+    /**
+     * internal method that checks a choice at node n against the bearing rule and counts a difference from the original
+     * rule, which may only involve collinear candidates
+     *
+     * @param startX - x of the point that gives the sweep start direction from n
+     * @param startY - y of the point that gives the sweep start direction from n
+     */
+    private static void compare(Node n, double startX, double startY, Node expected, Node actual, Node original, String name)
+    {
+        CheckTopology.check(expected == null ? actual == null : expected.equals(actual),
+                name + ": " + actual + " instead of " + expected);
+        choices++;
+        if (expected == null ? original == null : expected.equals(original))
+            return;
+        CheckTopology.check(expected != null && original != null
+                && (sameDirection(n, expected.getX(), expected.getY(), original)
+                || onLine(n, startX, startY, expected) || onLine(n, startX, startY, original)),
+                name + ": " + expected + " differs from " + original + " of the acos rule");
+        collinear++;
+    }
+
+    private static Node rightHand(PlanarGraph planar, List<Node> nodes, Node v, Node u)
+    {
+        int link = planar.rightHandLink(v.getId(), u.getId());
+        return link < 0 ? u : nodes.get(planar.getTargets()[link]);
+    }
+
+    private static Node counterclockwise(PlanarGraph planar, List<Node> nodes, Node n, double dx, double dy, Node excluded)
+    {
+        int link = planar.counterclockwiseLink(n.getId(), dx, dy, excluded == null ? -1 : excluded.getId());
+        return link < 0 ? null : nodes.get(planar.getTargets()[link]);
+    }
+
+    /**
+     * Bearing rule, i.e., the neighbor with the least counterclockwise bearing from the direction of (startX, startY)
+     * (a neighbor exactly in that direction first) and the shortest link of neighbors in the same direction
+     *
+     * @return neighbor or null if n has no neighbors besides the excluded one
+     */
+    private static Node bearingRule(Node n, double startX, double startY, Node excluded, List<Node> neighbors)
+    {
+        double start = bearing(n, startX, startY);
+        Node minne = null;
+        double min = Double.MAX_VALUE;
+        for (Node ne : neighbors)
+            if (!ne.equals(excluded))
+            {
+                double brg = bearing(n, ne.getX(), ne.getY()) - start;
+                if (brg < 0)
+                    brg += 2 * Math.PI;
+                if (brg < min || (brg == min && EuclDist.d(n, ne) < EuclDist.d(n, minne)))
+                {
+                    minne = ne;
+                    min = brg;
+                }
+            }
+        return minne;
+    }
+
+    /**
+     * @return bearing of (x, y) from n in [0, 2pi) (StrictMath, so points in the same direction get the same bearing)
+     */
+    private static double bearing(Node n, double x, double y)
+    {
+        double brg = StrictMath.atan2(y - n.getY(), x - n.getX());
+        return brg < 0 ? brg + 2 * Math.PI : brg;
+    }
+
+    private static boolean sameDirection(Node n, double ax, double ay, Node b)
+    {
+        return onLine(n, ax, ay, b) && (ax - n.getX()) * (b.getX() - n.getX()) + (ay - n.getY()) * (b.getY() - n.getY()) > 0;
+    }
+
+    /**
+     * @return true if b lies on the line through n and (ax, ay), i.e., in the same or the opposite direction from n
+     */
+    private static boolean onLine(Node n, double ax, double ay, Node b)
+    {
+        return (ax - n.getX()) * (b.getY() - n.getY()) - (ay - n.getY()) * (b.getX() - n.getX()) == 0;
+    }
+
+    /**
+     * @return planar neighbors of n in the iteration order of its neighbor set, as the original code visited them
+     */
+    private static List<Node> planarNeighbors(Node n, PlanarGraph planar)
+    {
+        List<Node> neighbors = new ArrayList<>();
+        for (Node ne : n.getNeighbors())
+            if (planar.getLink(n.getId(), ne.getId()) >= 0)
+                neighbors.add(ne);
+        return neighbors;
+    }
+    /**
+     * Original first hop of the GPSR perimeter mode, i.e., the first neighbor counterclockwise from the destination
+     */
+    private static Node periInitForward2(Node n, double dstX, double dstY, List<Node> neighbors)
+    {
+        double nDist = EuclDist.d(n.getX(), n.getY(), dstX, dstY);
+
+        Node minne = null;
+        double min = Double.MAX_VALUE;
+
+        for (Node ne : neighbors)
+        {
+            double neDist = EuclDist.d(n, ne);
+            double angle = Math.acos(((dstX - n.getX()) * (ne.getX() - n.getX())
+                    + (dstY - n.getY()) * (ne.getY() - n.getY())) / (nDist * neDist)); // cos(q)= a*b/|a||b|
+            if (!isNeighborOnLeftSide(ne, n, dstX, dstY))
+                angle = 2 * Math.PI - angle;
+
+            if (angle < min)
+            {
+                minne = ne;
+                min = angle;
+            }
+        }
+        return minne;
+    }
+
+    /**
+     * Original right-hand rule of the GPSR perimeter mode, i.e., the first neighbor counterclockwise from inne
+     */
+    private static Node rightHandForward2(Node n, Node inne, List<Node> neighbors)
+    {
+        double nDist = EuclDist.d(n, inne);
+
+        Node minne = null;
+        double min = Double.MAX_VALUE;
+
+        for (Node ne : neighbors)
+            if (!ne.equals(inne))
+            {
+                double neDist = EuclDist.d(n, ne);
+                double angle = Math.acos(((inne.getX() - n.getX()) * (ne.getX() - n.getX())
+                        + (inne.getY() - n.getY()) * (ne.getY() - n.getY())) / (nDist * neDist)); // cos(q)= a*b/|a||b|
+                if (!isNeighborOnLeftSide(ne, n, inne.getX(), inne.getY()))
+                    angle = 2 * Math.PI - angle;
+
+                if (angle < min)
+                {
+                    minne = ne;
+                    min = angle;
+                }
+            }
+
+        if (minne == null)
+            return inne;
+        else
+            return minne;
+    }
+
+    private static boolean isNeighborOnLeftSide(Node ne, Node s, double dstX, double dstY)
+    {
+        return ((dstX - s.getX()) * (ne.getY() - s.getY()) - (dstY - s.getY()) * (ne.getX() - s.getX())) >= 0;
+    }
+}
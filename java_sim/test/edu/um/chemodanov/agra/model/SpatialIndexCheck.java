@@ -0,0 +1,223 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.model;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.util.EuclDist;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the topology structures found with SpatialIndex queries (switched off nodes, static and asymmetrical links,
+ * border nodes of switched off components) against the original full scans over all nodes on seeded grid topologies.
+ * Half of the topologies use whole radio ranges and obstacle radii, so many nodes lie exactly at the query distance
+ * and on the edges of index cells
+ */
+public class SpatialIndexCheck
+{
+    private static final double PR = 0.95; // connectivity probability of asymmetrical links in Topology
+    private static final double[] RADII = {1, Math.sqrt(2), 2, Math.sqrt(8), 3, 4, 4.5};
+    //orders id lists of border sets, which come in no particular order
+    private static final Comparator<List<Integer>> BY_IDS = new Comparator<List<Integer>>()
+    {
+        @Override
+        public int compare(List<Integer> a, List<Integer> b)
+        {
+            return a.toString().compareTo(b.toString());
+        }
+    };
+
+    public static void main(String[] args) throws ReflectiveOperationException
+    {
+        PrintStream out = CheckTopology.quiet();
+        int links = 0;
+        int queries = 0;
+        for (long seed = 1; seed <= 4; seed++)
+        {
+            Random rand = new Random(seed);
+            boolean whole = seed % 2 == 0;
+            long linksSeed = rand.nextLong();
+            Topology t = CheckTopology.grid(40, new Random(linksSeed));
+            for (Node n : t.getNodes())
+                n.setR(whole ? 3 + rand.nextInt(3) : 3 + rand.nextDouble() * 2);
+            for (int i = 0; i < 12; i++)
+                t.generateObstacle(2 + rand.nextInt(38), 2 + rand.nextInt(38), whole ? 1 + rand.nextInt(4) : 1 + rand.nextDouble() * 3);
+            t.reInitializeNeighbors();
+            t.initializeCircumscribedObstacles();
+
+            String name = "seed " + seed;
+            compareSwitchedOff(t, name);
+            links += compareLinks(t, new Random(linksSeed), name);
+            compareBorders(t, name);
+            for (double r : RADII)
+                queries += compareQueries(t.getNodes(), r, name);
+        }
+        out.println("SpatialIndexCheck: " + links + " links and " + queries + " range queries match the full scans");
+    }
+
+    /**
+     * internal method that checks that exactly the nodes within an obstacle are switched off
+     */
+    private static void compareSwitchedOff(Topology t, String name)
+    {
+        for (Node n : t.getNodes())
+        {
+            boolean within = false;
+            for (Obstacle o : t.getObstacles())
+                if (EuclDist.d(n.getX(), n.getY(), o.getX(), o.getY()) <= o.getR())
+                    within = true;
+            CheckTopology.check(n.isOn() != within, name + ": " + n + " is " + (n.isOn() ? "on" : "off"));
+            CheckTopology.check(t.getSwitchedOffNodes().contains(n) == within, name + ": switched off nodes of " + n);
+        }
+    }
+
+    /**
+     * internal method that replays the original scan of links, i.e., every switched on node in id order scans all nodes
+     * in id order and draws an asymmetrical link for every node within its radio range
+     *
+     * @param links - random generator of asymmetrical links seeded the same as the topology one
+     * @return number of compared links
+     */
+    private static int compareLinks(Topology t, Random links, String name)
+    {
+        int linksNum = 0;
+        for (Node src : t.getNodes())
+            if (src.isOn())
+            {
+                Set<Node> staticNeighbors = new HashSet<>();
+                Set<Node> neighbors = new HashSet<>();
+                for (Node n : t.getNodes())
+                    if (!n.equals(src) && n.isOn()
+                            && EuclDist.d(src.getX(), src.getY(), n.getX(), n.getY()) <= src.getR())
+                    {
+                        staticNeighbors.add(n);
+                        if (links.nextDouble() <= PR)
+                            neighbors.add(n);
+                    }
+                CheckTopology.check(staticNeighbors.equals(src.getStaticNeighbors()), name + ": static neighbors of " + src);
+                CheckTopology.check(neighbors.equals(src.getNeighbors()), name + ": neighbors of " + src);
+                linksNum += staticNeighbors.size();
+            }
+        return linksNum;
+    }
+
+    /**
+     * internal method that compares border flags and the border nodes of every switched off component with the
+     * original labeling (BFS over all pairs of switched off nodes within distance 1)
+     */
+    private static void compareBorders(Topology t, String name) throws ReflectiveOperationException
+    {
+        List<List<Integer>> expected = new ArrayList<>();
+        Set<Node> labeled = new HashSet<>();
+        for (Node src : t.getSwitchedOffNodes())
+            if (labeled.add(src))
+            {
+                Set<Node> component = new HashSet<>();
+                Queue<Node> q = new LinkedList<>();
+                q.add(src);
+                while (!q.isEmpty())
+                {
+                    Node n = q.poll();
+                    component.add(n);
+                    for (Node off : t.getSwitchedOffNodes())
+                        if (EuclDist.d(n.getX(), n.getY(), off.getX(), off.getY()) <= 1 && labeled.add(off))
+                            q.add(off);
+                }
+                Set<Node> border = new HashSet<>();
+                for (Node n : t.getNodes())
+                    if (n.isOn())
+                        for (Node off : component)
+                            if (EuclDist.d(n.getX(), n.getY(), off.getX(), off.getY()) <= 1)
+                                border.add(n);
+                expected.add(ids(border));
+            }
+        for (Node n : t.getNodes())
+        {
+            boolean border = false;
+            if (n.isOn())
+                for (Node off : t.getSwitchedOffNodes())
+                    if (EuclDist.d(n.getX(), n.getY(), off.getX(), off.getY()) <= 1)
+                        border = true;
+            CheckTopology.check(n.isBorder() == border, name + ": border flag of " + n);
+        }
+
+        Method findBorderNodes = Topology.class.getDeclaredMethod("findBorderNodes", double.class);
+        findBorderNodes.setAccessible(true);
+        List<List<Integer>> actual = new ArrayList<>();
+        for (Object border : (List<?>) findBorderNodes.invoke(t, 1.0))
+            actual.add(ids((Set<?>) border));
+        Collections.sort(expected, BY_IDS);
+        Collections.sort(actual, BY_IDS);
+        CheckTopology.check(expected.equals(actual), name + ": border nodes of switched off components");
+    }
+
+    /**
+     * internal method that compares SpatialIndex queries around every node and between nodes with a full scan
+     *
+     * @param r - query radius, which is also the cell size of the index
+     * @return number of compared queries
+     */
+    private static int compareQueries(List<Node> nodes, double r, String name)
+    {
+        SpatialIndex index = new SpatialIndex(nodes, r);
+        int queries = 0;
+        for (Node n : nodes)
+            for (int k = 0; k < 2; k++)
+            {
+                double x = n.getX() + 0.5 * k;
+                double y = n.getY() + 0.25 * k;
+                List<Integer> expected = new ArrayList<>();
+                for (Node m : nodes)
+                    if (EuclDist.d(x, y, m.getX(), m.getY()) <= r)
+                        expected.add(m.getId());
+                int[] found = index.withinDistance(x, y, r);
+                List<Integer> actual = new ArrayList<>(found.length);
+                for (int id : found)
+                    actual.add(id);
+                CheckTopology.check(expected.equals(actual), name + ": nodes within " + r + " of (" + x + ", " + y + ")");
+                queries++;
+            }
+        return queries;
+    }
+
+    private static List<Integer> ids(Set<?> nodes)
+    {
+        List<Integer> ids = new ArrayList<>(nodes.size());
+        for (Object n : nodes)
+            ids.add(((Node) n).getId());
+        Collections.sort(ids);
+        return ids;
+    }
+}
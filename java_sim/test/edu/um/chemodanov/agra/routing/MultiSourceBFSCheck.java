@@ -0,0 +1,70 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.routing;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.model.Topology;
+
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * Checks hop distances of MultiSourceBFS against single pair BFS.shortestPath on seeded topologies
+ */
+public class MultiSourceBFSCheck implements BFSConstant
+{
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        int pairs = 0;
+        for (long seed = 1; seed <= 2; seed++)
+        {
+            Topology t = CheckTopology.seeded(seed, 30, 12);
+            int nodesNum = t.getNodes().size();
+            Random rand = new Random(seed);
+            BFS bfs = new BFS();
+            MultiSourceBFS multiBfs = new MultiSourceBFS();
+
+            //a full batch and a partial one, sources may repeat
+            for (int batchSize : new int[]{MultiSourceBFS.MAX_SOURCES, 37})
+            {
+                int[] sources = new int[batchSize];
+                for (int s = 0; s < batchSize; s++)
+                    sources[s] = rand.nextInt(nodesNum);
+                short[] dist = multiBfs.hopDistances(sources, t);
+                for (int s = 0; s < batchSize; s++)
+                    for (int v = 0; v < nodesNum; v++)
+                    {
+                        int[] path = bfs.shortestPath(sources[s], v, t);
+                        int expected = v == sources[s] ? 0 : (path.length == 0 ? NIL : path.length - 1);
+                        CheckTopology.check(dist[s * nodesNum + v] == expected, "seed " + seed + ": distance "
+                                + sources[s] + "->" + v + " is " + dist[s * nodesNum + v] + " instead of " + expected);
+                        pairs++;
+                    }
+            }
+        }
+        out.println("MultiSourceBFSCheck: " + pairs + " pairs match BFS.shortestPath");
+    }
+}
@@ -0,0 +1,93 @@
+/****************************************************************************/
+/* This file is part of AGRA project.                                       */
+/*                                                                          */
+/* AGRA is free software: you can redistribute it and/or modify             */
+/* it under the terms of the GNU General Public License as published by     */
+/* the Free Software Foundation, either version 3 of the License, or        */
+/* (at your option) any later version.                                      */
+/*                                                                          */
+/* AGRA is distributed in the hope that it will be useful,                  */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of           */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the            */
+/* GNU General Public License for more details.                             */
+/*                                                                          */
+/* You should have received a copy of the GNU General Public License        */
+/* along with AGRA.  If not, see <http://www.gnu.org/licenses/>.            */
+/*                                                                          */
+/****************************************************************************/
+/*                                                                          */
+/*  Author:    Dmitrii Chemodanov, University of Missouri-Columbia          */
+/*  Title:     AGRA: AI-augmented Geographic Routing Approach for IoT-based */
+/*             Incident-Supporting Applications                             */
+/*  Revision:  1.0         6/19/2017                                        */
+/****************************************************************************/
+
+package edu.um.chemodanov.agra.util;
+
+import edu.um.chemodanov.agra.CheckTopology;
+import edu.um.chemodanov.agra.model.Node;
+import edu.um.chemodanov.agra.model.Topology;
+import edu.um.chemodanov.agra.routing.BFSConstant;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Checks components of switched off nodes that Topology labels with UnionFind against
+ * the original breadth first search labeling (neighbors are switched off nodes within distance 1)
+ */
+public class UnionFindCheck implements BFSConstant
+{
+    public static void main(String[] args)
+    {
+        PrintStream out = CheckTopology.quiet();
+        int offNodes = 0;
+        for (long seed = 1; seed <= 5; seed++)
+        {
+            Topology t = CheckTopology.seeded(seed, 60, 25);
+            Map<Node, Integer> expected = labelWithBFS(t.getSwitchedOffNodes());
+            for (Node n : t.getSwitchedOffNodes())
+            {
+                CheckTopology.check(n.getComponent() == expected.get(n), "seed " + seed + ": " + n
+                        + " is in component " + n.getComponent() + " instead of " + expected.get(n));
+                offNodes++;
+            }
+        }
+        out.println("UnionFindCheck: components of " + offNodes + " switched off nodes match BFS labeling");
+    }
+
+    /**
+     * Original labeling, i.e., components are numbered from 1 in the iteration order of their first nodes
+     */
+    private static Map<Node, Integer> labelWithBFS(Set<Node> offNodes)
+    {
+        Map<Node, Set<Node>> neighbors = new HashMap<>();
+        for (Node n : offNodes)
+        {
+            Set<Node> nNeighbors = new HashSet<>();
+            for (Node offS : offNodes)
+                if (EuclDist.d(n.getX(), n.getY(), offS.getX(), offS.getY()) <= 1 && !n.equals(offS))
+                    nNeighbors.add(offS);
+            neighbors.put(n, nNeighbors);
+        }
+
+        Map<Node, Integer> component = new HashMap<>();
+        int comp = 0;
+        for (Node src : offNodes)
+            if (!component.containsKey(src))
+            {
+                comp += 1;
+                Queue<Node> q = new LinkedList<>();
+                component.put(src, comp);
+                q.add(src);
+                while (!q.isEmpty())
+                    for (Node neighbor : neighbors.get(q.poll()))
+                        if (!component.containsKey(neighbor))
+                        {
+                            component.put(neighbor, comp);
+                            q.add(neighbor);
+                        }
+            }
+        return component;
+    }
+}